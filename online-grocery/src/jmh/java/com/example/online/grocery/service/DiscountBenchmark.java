@@ -0,0 +1,100 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.discount.DiscountEvaluator;
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.OrderItem;
+import com.example.online.grocery.util.Money;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The compiled discount evaluators next to the switch based methods they replaced, over the same lines: the request
+ * lines the evaluators price and the order items the legacy methods read, all at a unit price of €1.00.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscountBenchmark {
+
+    static final long PRICE_MICROS = Money.ofEuros(1.0);
+
+    OrderRequest.Line[] breads;
+    OrderRequest.Line[] vegetables;
+    OrderRequest.Line[] beers;
+    OrderItem[] legacyBreads;
+    OrderItem[] legacyVegetables;
+    OrderItem[] legacyBeers;
+    Item.ProductType[] beerTypes;
+    DiscountEvaluator bread;
+    DiscountEvaluator vegetable;
+    DiscountEvaluator[] evaluators;
+
+    @Setup
+    public void setup() {
+        CatalogSnapshot catalog = PricingFixtures.catalog();
+        List<OrderRequest.Line> basket = PricingFixtures.mixedBasket(1000);
+        breads = basket.stream().filter(line -> line.name().equals("bread")).toArray(OrderRequest.Line[]::new);
+        vegetables = basket.stream().filter(line -> line.name().equals("vegetable")).toArray(OrderRequest.Line[]::new);
+        beers = basket.stream().filter(line -> line.name().endsWith(" beer")).toArray(OrderRequest.Line[]::new);
+        legacyBreads = legacy(breads);
+        legacyVegetables = legacy(vegetables);
+        legacyBeers = legacy(beers);
+        beerTypes = new Item.ProductType[beers.length];
+        for (int i = 0; i < beers.length; i++) {
+            beerTypes[i] = catalog.findByName(beers[i].name()).orElseThrow().getType();
+        }
+        bread = catalog.discountEvaluator(Item.ProductType.BREAD);
+        vegetable = catalog.discountEvaluator(Item.ProductType.VEGETABLE);
+        evaluators = new DiscountEvaluator[Item.ProductType.values().length];
+        for (Item.ProductType type : Item.ProductType.values()) {
+            evaluators[type.ordinal()] = catalog.discountEvaluator(type);
+        }
+    }
+
+    @Benchmark
+    public void breadCompiled(Blackhole blackhole) {
+        for (OrderRequest.Line line : breads) blackhole.consume(bread.discount(line, PRICE_MICROS));
+    }
+
+    @Benchmark
+    public void breadLegacy(Blackhole blackhole) {
+        for (OrderItem line : legacyBreads) blackhole.consume(LegacyDiscounts.calculateBreadDiscount(line));
+    }
+
+    @Benchmark
+    public void vegetableCompiled(Blackhole blackhole) {
+        for (OrderRequest.Line line : vegetables) blackhole.consume(vegetable.discount(line, PRICE_MICROS));
+    }
+
+    @Benchmark
+    public void vegetableLegacy(Blackhole blackhole) {
+        for (OrderItem line : legacyVegetables) blackhole.consume(LegacyDiscounts.calculateDiscountForVegetable(line));
+    }
+
+    @Benchmark
+    public void beerCompiled(Blackhole blackhole) {
+        for (int i = 0; i < beers.length; i++) blackhole.consume(evaluators[beerTypes[i].ordinal()].discount(beers[i], PRICE_MICROS));
+    }
+
+    @Benchmark
+    public void beerLegacy(Blackhole blackhole) {
+        for (OrderItem line : legacyBeers) blackhole.consume(LegacyDiscounts.calculateDiscountForBeer(line));
+    }
+
+    private static OrderItem[] legacy(OrderRequest.Line[] lines) {
+        OrderItem[] orderItems = new OrderItem[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            OrderRequest.Line line = lines[i];
+            orderItems[i] = new OrderItem(line.name(), line.quantity(), line.age(), line.weight(), line.origin());
+            orderItems[i].setPriceMicros(PRICE_MICROS);
+        }
+        return orderItems;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.entity.Item;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top 10 catalog searches for a short and a longer prefix, and the index update after a catalog change of one item,
+ * for catalogs of up to 100,000 items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemSearchBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int items;
+
+    ItemSearchIndex index;
+    List<Item> changed;
+
+    @Setup
+    public void setup() {
+        String[] words = {"bread", "beer", "vegetable", "rye", "spelt", "lager", "pilsner", "carrot", "kale", "stout"};
+        Item.ProductType[] types = Item.ProductType.values();
+        List<Item> catalog = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            String name = words[i % words.length] + " " + words[(i / words.length) % words.length] + " " + Integer.toString(i, 36);
+            catalog.add(new Item(name, 1.0, types[i % types.length]));
+        }
+        index = ItemSearchIndex.of(catalog);
+        changed = List.of(new Item(catalog.get(items / 2).getName(), 2.0, Item.ProductType.BREAD));
+    }
+
+    @Benchmark
+    public List<Item> searchShortPrefix() {
+        return index.search("b", 10);
+    }
+
+    @Benchmark
+    public List<Item> searchLongPrefix() {
+        return index.search("rye pil", 10);
+    }
+
+    @Benchmark
+    public ItemSearchIndex updateOneItem() {
+        return index.with(changed);
+    }
+}
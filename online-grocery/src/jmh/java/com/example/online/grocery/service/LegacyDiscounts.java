@@ -0,0 +1,58 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.entity.OrderItem;
+
+/**
+ * The hardcoded discount methods OrderService used before promotion rules were compiled, kept as a baseline.
+ */
+final class LegacyDiscounts {
+
+    private LegacyDiscounts() {
+    }
+
+    static double calculateBreadDiscount(OrderItem orderItem) {
+        int age = orderItem.getAge();
+        int quantity = orderItem.getQuantity();
+        if (age <= 1) return 0.0;
+        else if (age <= 3) {
+            return orderItem.getPrice() * Math.max(0, (quantity / 2));
+
+        } else if (age <= 6) {
+            return orderItem.getPrice() * Math.max(0, 2 * (quantity / 3));
+        } else {
+            throw new IllegalArgumentException("Bread older than six days can not be added to the order.");
+        }
+    }
+
+    static double calculateDiscountForVegetable(OrderItem orderItem) {
+        double weight = orderItem.getWeight();
+        double price = orderItem.getPrice() * weight / 100;
+        if (weight <= 100) {
+            return price * 0.05;
+        } else if (weight <= 500) {
+            return price * 0.07;
+        } else {
+            return price * 0.10;
+        }
+    }
+
+    static double calculateDiscountForBeer(OrderItem orderItem) {
+        String origin = orderItem.getOrigin();
+        int packOfSix = orderItem.getQuantity() / 6;
+        if (packOfSix <= 0) return 0.0;
+        switch (origin) {
+            case "Dutch" -> {
+                return 2.0 * packOfSix;
+            }
+            case "German" -> {
+                return 4.0 * packOfSix;
+            }
+            case "Belgium" -> {
+                return 3.0 * packOfSix;
+            }
+            default -> {
+                return 0.0;
+            }
+        }
+    }
+}
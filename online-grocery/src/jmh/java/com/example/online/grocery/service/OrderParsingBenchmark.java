@@ -0,0 +1,48 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.entity.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a posted order: bound to the JPA entities by reflection, as the controllers used to, next to the request
+ * record read by its own deserializer, which is what gets priced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderParsingBenchmark {
+
+    @Param({"1", "10", "100"})
+    int lines;
+
+    ObjectReader entityReader;
+    ObjectReader requestReader;
+    byte[] body;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        entityReader = objectMapper.readerFor(Order.class);
+        requestReader = objectMapper.readerFor(OrderRequest.class);
+        body = objectMapper.writeValueAsBytes(PricingFixtures.order(PricingFixtures.mixedBasket(lines)));
+    }
+
+    @Benchmark
+    public Order entity() throws IOException {
+        return entityReader.readValue(body);
+    }
+
+    @Benchmark
+    public OrderRequest request() throws IOException {
+        return requestReader.readValue(body);
+    }
+}
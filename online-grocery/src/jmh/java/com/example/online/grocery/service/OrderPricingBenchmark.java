@@ -0,0 +1,55 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end pricing and its stages for mixed baskets of growing size. The receipt is rendered from the order priced
+ * in the setup, as the sink was handed it. With {@code metrics} the stage meters record into a real registry, which
+ * shows the cost of the instrumentation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPricingBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    int lines;
+
+    @Param({"false", "true"})
+    boolean metrics;
+
+    OrderService orderService;
+    OrderRequest order;
+    PricedOrder pricedOrder;
+
+    @Setup
+    public void setup() {
+        PricingMetrics pricingMetrics = metrics ? new PricingMetrics(new SimpleMeterRegistry()) : PricingMetrics.NONE;
+        orderService = PricingFixtures.orderService(PricingFixtures.catalog(), pricingMetrics, priced -> pricedOrder = priced);
+        order = PricingFixtures.order(PricingFixtures.mixedBasket(lines));
+        orderService.priceOrder(order);
+    }
+
+    @Benchmark
+    public String processOrder() {
+        return orderService.priceOrder(order).text();
+    }
+
+    @Benchmark
+    public List<OrderRequest.Line> combineSameItems() {
+        return orderService.updateOrderCombineSameItemsToGetDiscount(order);
+    }
+
+    @Benchmark
+    public String generateReceipt() {
+        return orderService.generateReceipt(pricedOrder);
+    }
+}
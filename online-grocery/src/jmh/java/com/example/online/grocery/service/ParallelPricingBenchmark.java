@@ -0,0 +1,50 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One large basket priced line by line and on the line pricing pool, to find where splitting starts to pay off
+ * (grocery.pricing.parallel.threshold). The pool has one worker per available processor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelPricingBenchmark {
+
+    @Param({"256", "1024", "4096", "16384", "65536"})
+    int lines;
+
+    @Param({"false", "true"})
+    boolean parallel;
+
+    ForkJoinPool pool;
+    OrderService orderService;
+    OrderRequest order;
+
+    @Setup
+    public void setup() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        ItemCatalog itemCatalog = new ItemCatalog(null, null);
+        itemCatalog.publish(PricingFixtures.catalog());
+        orderService = new OrderService(itemCatalog, PricedOrderSink.NONE, PricingMetrics.NONE, ReceiptMemo.NONE, SalesAggregates.NONE,
+                parallel ? new ParallelLinePricer(pool, 2) : ParallelLinePricer.NONE);
+        order = PricingFixtures.order(PricingFixtures.breadBasket(lines));
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public String processOrder() {
+        return orderService.priceOrder(order).text();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.BootStrapInitialData;
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.entity.Item;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+final class PricingFixtures {
+
+    private PricingFixtures() {
+    }
+
+    static CatalogSnapshot catalog() {
+        List<Item> items = List.of(
+                new Item(1, "bread", Item.ProductType.BREAD, 1.0, "bread rule"),
+                new Item(2, "vegetable", Item.ProductType.VEGETABLE, 1.0, "vegetable rule"),
+                new Item(4, "Dutch beer", Item.ProductType.DUTCH_BEER, 0.50, "Dutch beer rule"),
+                new Item(5, "German beer", Item.ProductType.GERMAN_BEER, 1.0, "German beer rule"),
+                new Item(6, "Belgium beer", Item.ProductType.BELGIUM_BEER, 0.75, "Belgium beer rule"));
+        return new CatalogSnapshot(items, BootStrapInitialData.defaultPromotionRules());
+    }
+
+    static OrderService orderService(CatalogSnapshot catalog) {
+        return orderService(catalog, PricingMetrics.NONE);
+    }
+
+    static OrderService orderService(CatalogSnapshot catalog, PricingMetrics pricingMetrics) {
+        return orderService(catalog, pricingMetrics, PricedOrderSink.NONE);
+    }
+
+    static OrderService orderService(CatalogSnapshot catalog, PricingMetrics pricingMetrics, PricedOrderSink pricedOrderSink) {
+        // the repositories are only used by reload(), benchmarks publish a fixed snapshot instead
+        ItemCatalog itemCatalog = new ItemCatalog(null, null);
+        itemCatalog.publish(catalog);
+        return new OrderService(itemCatalog, pricedOrderSink, pricingMetrics, ReceiptMemo.NONE, SalesAggregates.NONE, ParallelLinePricer.NONE);
+    }
+
+    /**
+     * A basket with the given number of lines spread over every product type, the same for every run.
+     */
+    static List<OrderRequest.Line> mixedBasket(int lines) {
+        Random random = new Random(42);
+        List<OrderRequest.Line> orderItems = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            switch (i % 5) {
+                case 0 -> orderItems.add(new OrderRequest.Line("bread", 1 + random.nextInt(10), random.nextInt(7), null, 0.0));
+                case 1 -> orderItems.add(new OrderRequest.Line("vegetable", 0, null, null, 50.0 + random.nextInt(650)));
+                case 2 -> orderItems.add(new OrderRequest.Line("Dutch beer", 1 + random.nextInt(12), null, "Dutch", 0.0));
+                case 3 -> orderItems.add(new OrderRequest.Line("German beer", 1 + random.nextInt(12), null, "German", 0.0));
+                default -> orderItems.add(new OrderRequest.Line("Belgium beer", 1 + random.nextInt(12), null, "Belgium", 0.0));
+            }
+        }
+        return orderItems;
+    }
+
+    /**
+     * A basket of mostly bread lines, which stay separate lines after same items are combined, the same for every run.
+     */
+    static List<OrderRequest.Line> breadBasket(int lines) {
+        Random random = new Random(42);
+        List<OrderRequest.Line> orderItems = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            switch (i % 10) {
+                case 8 -> orderItems.add(new OrderRequest.Line("vegetable", 0, null, null, 50.0 + random.nextInt(650)));
+                case 9 -> orderItems.add(new OrderRequest.Line("Dutch beer", 1 + random.nextInt(12), null, "Dutch", 0.0));
+                default -> orderItems.add(new OrderRequest.Line("bread", 1 + random.nextInt(10), random.nextInt(7), null, 0.0));
+            }
+        }
+        return orderItems;
+    }
+
+    static OrderRequest order(List<OrderRequest.Line> orderItems) {
+        return new OrderRequest(orderItems);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same basket priced over and over, as kiosk presets and reorders do, with and without the receipt memo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepeatedBasketBenchmark {
+
+    @Param({"5", "20", "60"})
+    int lines;
+
+    @Param({"false", "true"})
+    boolean memo;
+
+    OrderService orderService;
+    OrderRequest order;
+
+    @Setup
+    public void setup() {
+        ItemCatalog itemCatalog = new ItemCatalog(null, null);
+        itemCatalog.publish(PricingFixtures.catalog());
+        orderService = new OrderService(itemCatalog, PricedOrderSink.NONE, PricingMetrics.NONE,
+                new ReceiptMemo(new SimpleMeterRegistry(), memo, 1000, 64), SalesAggregates.NONE, ParallelLinePricer.NONE);
+        order = PricingFixtures.order(PricingFixtures.mixedBasket(lines));
+    }
+
+    @Benchmark
+    public String processOrder() {
+        return orderService.priceOrder(order).text();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.online.grocery;
+
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.entity.OrderItem;
+import com.example.online.grocery.repository.ItemRepository;
+import com.example.online.grocery.repository.OrderRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Item lookup and order insert throughput with today's defaults (in-memory H2, SQL logging on, no index on the item
+ * name) and with the {@code prod} profile (file-backed H2, unique name index, foreign key indexes, SQL logging off).
+ * Orders are saved the way the write-behind writer saves them: a batch of orders per transaction. Run with
+ * {@code gradle persistenceBenchmark -PpersistenceBenchmark.items=20000}.
+ */
+public class PersistenceBenchmark {
+    private static final int ORDERS_PER_TRANSACTION = 500;
+
+    public static void main(String[] args) throws Exception {
+        int items = Integer.getInteger("persistenceBenchmark.items", 20_000);
+        int lookups = Integer.getInteger("persistenceBenchmark.lookups", 20_000);
+        int orders = Integer.getInteger("persistenceBenchmark.orders", 20_000);
+
+        List<String> results = new ArrayList<>();
+        for (String profile : new String[]{"default", "prod"}) {
+            Path directory = Files.createTempDirectory("persistence-benchmark-" + profile);
+            try (ConfigurableApplicationContext context = start(profile, directory)) {
+                if (profile.equals("default")) {
+                    context.getBean(JdbcTemplate.class).execute("alter table item drop constraint uk_item_name");
+                }
+                addItems(context, items);
+                PrintStream console = System.out;
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                try {
+                    lookUp(context, items, lookups / 10);
+                    insert(context, orders / 10);
+                    double lookupsPerSecond = lookUp(context, items, lookups);
+                    double ordersPerSecond = insert(context, orders);
+                    results.add(String.format(Locale.ROOT, "%-8s %8d %12.0f %12.0f", profile, items, lookupsPerSecond, ordersPerSecond));
+                } finally {
+                    System.setOut(console);
+                }
+            }
+        }
+        System.out.println();
+        System.out.println("profile     items    lookups/s     orders/s");
+        results.forEach(System.out::println);
+    }
+
+    private static ConfigurableApplicationContext start(String profile, Path directory) {
+        SpringApplication application = new SpringApplication(OnlineGroceryApplication.class);
+        List<String> arguments = new ArrayList<>(List.of("--server.port=0", "--logging.level.root=WARN"));
+        if (profile.equals("prod")) {
+            application.setAdditionalProfiles("prod");
+            arguments.add("--spring.datasource.url=jdbc:h2:file:" + directory.resolve("itemdb") + ";DB_CLOSE_ON_EXIT=FALSE");
+            arguments.add("--grocery.catalog.log.dir=" + directory.resolve("catalog"));
+        } else {
+            arguments.add("--spring.datasource.url=jdbc:h2:mem:persistence-benchmark");
+        }
+        return application.run(arguments.toArray(String[]::new));
+    }
+
+    private static void addItems(ConfigurableApplicationContext context, int count) {
+        ItemRepository itemRepository = context.getBean(ItemRepository.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int start = 0; start < count; start += 1000) {
+                List<Item> batch = new ArrayList<>(1000);
+                for (int i = start; i < Math.min(count, start + 1000); i++) {
+                    batch.add(new Item("item " + i, Item.ProductType.VEGETABLE, 1.0, null));
+                }
+                transactionTemplate.executeWithoutResult(status -> itemRepository.saveAll(batch));
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static double lookUp(ConfigurableApplicationContext context, int items, int lookups) {
+        ItemRepository itemRepository = context.getBean(ItemRepository.class);
+        Random random = new Random(17);
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            itemRepository.findByName("item " + random.nextInt(items)).orElseThrow();
+        }
+        return lookups / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static double insert(ConfigurableApplicationContext context, int orders) {
+        OrderRepository orderRepository = context.getBean(OrderRepository.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        ItemRepository itemRepository = context.getBean(ItemRepository.class);
+        Item bread = itemRepository.findByName("bread").orElseThrow();
+        Item vegetable = itemRepository.findByName("vegetable").orElseThrow();
+        Item dutchBeer = itemRepository.findByName("Dutch beer").orElseThrow();
+        long start = System.nanoTime();
+        for (int saved = 0; saved < orders; saved += ORDERS_PER_TRANSACTION) {
+            List<Order> batch = new ArrayList<>(ORDERS_PER_TRANSACTION);
+            for (int i = 0; i < ORDERS_PER_TRANSACTION; i++) {
+                batch.add(order(bread, vegetable, dutchBeer));
+            }
+            transactionTemplate.executeWithoutResult(status -> orderRepository.saveAll(batch));
+        }
+        return orders / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static Order order(Item bread, Item vegetable, Item dutchBeer) {
+        List<OrderItem> lines = new ArrayList<>(List.of(new OrderItem("bread", 3, 3), new OrderItem("vegetable", 200.0),
+                new OrderItem("Dutch beer", 6, "Dutch")));
+        Order order = new Order(lines);
+        lines.get(0).setItem(bread);
+        lines.get(1).setItem(vegetable);
+        lines.get(2).setItem(dutchBeer);
+        for (OrderItem line : lines) {
+            line.setOrder(order);
+        }
+        return order;
+    }
+}
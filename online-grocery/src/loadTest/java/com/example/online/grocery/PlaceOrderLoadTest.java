@@ -0,0 +1,131 @@
+package com.example.online.grocery;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test of POST /api/v1/place_order. Starts the application once per mode: Spring MVC with platform
+ * request threads, with the {@code virtual} profile and WebFlux with the {@code reactive} profile. It keeps
+ * {@code loadTest.concurrency} clients sending orders back to back and prints throughput and latency percentiles for
+ * each. Run with {@code gradle loadTest -PloadTest.concurrency=1000}, or a subset with
+ * {@code -PloadTest.modes=platform,reactive}.
+ */
+public class PlaceOrderLoadTest {
+
+    private static final String ORDER = """
+            {"orderItems":[
+              {"name":"bread","quantity":3,"age":3},
+              {"name":"vegetable","weight":200.0},
+              {"name":"Dutch beer","quantity":6,"origin":"Dutch"},
+              {"name":"German beer","quantity":7,"origin":"German"}]}""";
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("loadTest.concurrency", 500);
+        Duration warmUp = Duration.ofSeconds(Integer.getInteger("loadTest.warmUpSeconds", 10));
+        Duration measurement = Duration.ofSeconds(Integer.getInteger("loadTest.seconds", 20));
+
+        List<String> modes = List.of(System.getProperty("loadTest.modes", "platform,virtual,reactive").split(","));
+
+        List<String> results = new ArrayList<>();
+        for (String mode : modes) {
+            try (ConfigurableApplicationContext context = start(mode)) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                URI uri = URI.create("http://localhost:" + port + "/api/v1/place_order");
+                run(uri, concurrency, warmUp);
+                Result result = run(uri, concurrency, measurement);
+                results.add(result.format(mode, concurrency));
+            }
+        }
+        System.out.println();
+        System.out.println("mode       clients  requests/s     p50 ms     p99 ms     max ms  errors");
+        results.forEach(System.out::println);
+    }
+
+    private static ConfigurableApplicationContext start(String mode) {
+        SpringApplication application = new SpringApplication(OnlineGroceryApplication.class);
+        if (!mode.equals("platform")) {
+            application.setAdditionalProfiles(mode);
+        }
+        return application.run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest-" + mode, "--spring.r2dbc.url=r2dbc:h2:mem:///loadtest-" + mode);
+    }
+
+    private static Result run(URI uri, int concurrency, Duration duration) throws Exception {
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(ORDER))
+                .build();
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        List<Future<long[]>> clients = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < end) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception ex) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long[] all = new long[0];
+        for (Future<long[]> latencies : clients) {
+            long[] next = latencies.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + next.length);
+            System.arraycopy(next, 0, all, offset, next.length);
+        }
+        Arrays.sort(all);
+        return new Result(all, elapsed, errors.get());
+    }
+
+    private record Result(long[] sortedLatencies, long elapsedNanos, long errors) {
+
+        String format(String mode, int clients) {
+            double throughput = sortedLatencies.length / (elapsedNanos / 1e9);
+            return String.format(Locale.ROOT, "%-9s %8d %11.0f %10.2f %10.2f %10.2f %7d", mode, clients, throughput,
+                    percentile(0.50), percentile(0.99), sortedLatencies.length == 0 ? 0.0 : sortedLatencies[sortedLatencies.length - 1] / 1e6, errors);
+        }
+
+        private double percentile(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0.0;
+            }
+            return sortedLatencies[(int) Math.ceil(percentile * sortedLatencies.length) - 1] / 1e6;
+        }
+    }
+}
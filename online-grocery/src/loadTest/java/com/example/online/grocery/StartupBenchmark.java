@@ -0,0 +1,141 @@
+package com.example.online.grocery;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Time to first request and resident memory of a fresh process per mode: the plain jar with today's defaults, with the
+ * {@code fast-start} profile, with that profile and the class data sharing archive built by {@code gradle cdsArchive},
+ * the same with only the C1 compiler, and the native executable when {@code gradle -Pnative nativeCompile} has built
+ * it. The clock starts before the process is launched and stops when the first order is priced, which needs the
+ * catalog to be loaded. Run with {@code gradle startupBenchmark -PstartupBenchmark.runs=5}.
+ */
+public class StartupBenchmark {
+
+    private static final String ORDER = """
+            {"orderItems":[{"name":"bread","quantity":3,"age":3},{"name":"vegetable","weight":200.0}]}""";
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.getInteger("startupBenchmark.runs", 3);
+        String java = System.getProperty("startupBenchmark.java", "java");
+        Path directory = Path.of(System.getProperty("startupBenchmark.dir", "build/fast-start"));
+        Path nativeImage = Path.of(System.getProperty("startupBenchmark.native", "build/native/nativeCompile/online-grocery"));
+
+        List<Mode> modes = new ArrayList<>(List.of(
+                new Mode("default", List.of(java, "-jar", "online-grocery.jar")),
+                new Mode("fast-start", List.of(java, "-jar", "online-grocery.jar", "--spring.profiles.active=fast-start")),
+                new Mode("cds", List.of(java, "-XX:SharedArchiveFile=application.jsa", "-Xlog:cds=off", "-Xlog:cds+dynamic=off",
+                        "-jar", "online-grocery.jar", "--spring.profiles.active=fast-start")),
+                new Mode("cds-c1", List.of(java, "-XX:SharedArchiveFile=application.jsa", "-Xlog:cds=off", "-Xlog:cds+dynamic=off",
+                        "-XX:TieredStopAtLevel=1", "-jar", "online-grocery.jar", "--spring.profiles.active=fast-start"))));
+        if (Files.isExecutable(nativeImage)) {
+            modes.add(new Mode("native", List.of(nativeImage.toString(), "--spring.profiles.active=fast-start")));
+        }
+
+        List<String> results = new ArrayList<>();
+        for (Mode mode : modes) {
+            long[] millis = new long[runs];
+            long[] rssKilobytes = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long[] sample = measure(mode, directory);
+                millis[run] = sample[0];
+                rssKilobytes[run] = sample[1];
+            }
+            results.add(String.format(Locale.ROOT, "%-11s %4d %16d %10.0f", mode.name(), runs, median(millis),
+                    median(rssKilobytes) / 1024.0));
+        }
+        System.out.println();
+        System.out.println("mode        runs  first order ms     RSS MB");
+        results.forEach(System.out::println);
+    }
+
+    /**
+     * Starts the mode on a free port, returns the milliseconds until the first order was priced and the resident set
+     * size in kilobytes right after it, and stops the process.
+     */
+    private static long[] measure(Mode mode, Path directory) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>(mode.command());
+        command.addAll(List.of("--server.port=" + port, "--logging.level.root=WARN"));
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/place_order"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(ORDER))
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try {
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode.name() + " exited with " + process.exitValue());
+                }
+                if (System.nanoTime() - start > TIMEOUT.toNanos()) {
+                    throw new IllegalStateException(mode.name() + " did not answer within " + TIMEOUT);
+                }
+                try {
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() == 200) {
+                        break;
+                    }
+                } catch (ConnectException ex) {
+                    // not listening yet
+                }
+                Thread.sleep(5);
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            return new long[]{millis, residentKilobytes(process.pid())};
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    /**
+     * VmRSS of the process, or -1 where /proc is not available.
+     */
+    private static long residentKilobytes(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        return -1;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private record Mode(String name, List<String> command) {
+    }
+}
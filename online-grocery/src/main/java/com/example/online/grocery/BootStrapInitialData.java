@@ -1,32 +1,128 @@
 package com.example.online.grocery;
 
+import com.example.online.grocery.entity.CatalogVersion;
 import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.PromotionRule;
+import com.example.online.grocery.repository.CatalogVersionRepository;
 import com.example.online.grocery.repository.ItemRepository;
+import com.example.online.grocery.repository.PromotionRuleRepository;
+import com.example.online.grocery.service.CatalogEventLog;
+import com.example.online.grocery.service.CatalogSnapshot;
+import com.example.online.grocery.service.ItemCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
 @Component
 public class BootStrapInitialData implements CommandLineRunner {
+    private static final Logger log = LoggerFactory.getLogger(BootStrapInitialData.class);
+
     private  final ItemRepository itemRepository;
+    private final PromotionRuleRepository promotionRuleRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final ItemCatalog itemCatalog;
+    private final CatalogEventLog catalogEventLog;
 
-    public BootStrapInitialData(ItemRepository itemRepository) {
+    public BootStrapInitialData(ItemRepository itemRepository, PromotionRuleRepository promotionRuleRepository,
+                                CatalogVersionRepository catalogVersionRepository, ItemCatalog itemCatalog, CatalogEventLog catalogEventLog) {
         this.itemRepository = itemRepository;
+        this.promotionRuleRepository = promotionRuleRepository;
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.itemCatalog = itemCatalog;
+        this.catalogEventLog = catalogEventLog;
+    }
+
+    public static List<PromotionRule> defaultPromotionRules() {
+        return List.of(
+                PromotionRule.ageTier(Item.ProductType.BREAD, 1.0, 1, 0),
+                PromotionRule.ageTier(Item.ProductType.BREAD, 3.0, 2, 1),
+                PromotionRule.ageTier(Item.ProductType.BREAD, 6.0, 3, 2),
+                PromotionRule.maxAge(Item.ProductType.BREAD, 6.0, "Bread older than six days can not be added to the order."),
+                PromotionRule.weightTier(Item.ProductType.VEGETABLE, 100.0, 500),
+                PromotionRule.weightTier(Item.ProductType.VEGETABLE, 500.0, 700),
+                PromotionRule.weightTier(Item.ProductType.VEGETABLE, null, 1000),
+                PromotionRule.pack(Item.ProductType.DUTCH_BEER, 6, 2.0),
+                PromotionRule.pack(Item.ProductType.GERMAN_BEER, 6, 4.0),
+                PromotionRule.pack(Item.ProductType.BELGIUM_BEER, 6, 3.0));
+    }
+
+    /**
+     * The items a new database is seeded with. They carry no id, so that saving them is one batched insert instead of
+     * a lookup and an insert per item.
+     */
+    public static List<Item> defaultItems() {
+        return List.of(
+                new Item("bread", Item.ProductType.BREAD, 1.0, "No discount on bread one day old or newer.On breads 3 days old buy 1 take 2."),
+                new Item("vegetable", Item.ProductType.VEGETABLE, 1.0, "5% discount if you buy up to 100g in same order.7% discount if you buy 100 to 500g. 10% discount if you buy more than 500g."),
+                new Item("Dutch beer", Item.ProductType.DUTCH_BEER, 0.50, " € 2,00 for each Dutch beer pack."),
+                new Item("German beer", Item.ProductType.GERMAN_BEER, 1.0, " € 4,00 for each German beer pack."),
+                new Item("Belgium beer", Item.ProductType.BELGIUM_BEER, 0.75, " € 3,00 for each Belgium beer pack."));
     }
 
     @Override
     public void run(String... args)  {
-        Item bread=new Item(1,"bread", Item.ProductType.BREAD,1.0,"No discount on bread one day old or newer.On breads 3 days old buy 1 take 2.");
-        Item vegetable=new Item(2,"vegetable", Item.ProductType.VEGETABLE,1.0,"5% discount if you buy up to 100g in same order.7% discount if you buy 100 to 500g. 10% discount if you buy more than 500g.");
-       // Item beer=new Item(3,"beer", Item.ProductType.BEER,0.50,"€ 3,00 for each Belgium beer pack of 6. € 2,00 for each Dutch beer pack.€ 4,00 for each German beer pack.");
-        Item dutchBeer=new Item(4,"Dutch beer", Item.ProductType.DUTCH_BEER,0.50," € 2,00 for each Dutch beer pack.");
-        Item germanBeer=new Item(5,"German beer", Item.ProductType.GERMAN_BEER,1.0," € 4,00 for each German beer pack.");
-        Item belgiumBeer=new Item(6,"Belgium beer", Item.ProductType.BELGIUM_BEER,0.75," € 3,00 for each Belgium beer pack.");
-        itemRepository.save(bread);
-        itemRepository.save(vegetable);
-        //itemRepository.save(beer);
-        itemRepository.save(dutchBeer);
-        itemRepository.save(germanBeer);
-        itemRepository.save(belgiumBeer);
-        System.out.println("****added Items****");
+        Optional<CatalogSnapshot> recovered = catalogEventLog.recover();
+        if (recovered.isPresent()) {
+            restore(recovered.get());
+            return;
+        }
+        if (itemRepository.count() > 0) {
+            log.info("Loaded the catalog from the database");
+            Optional<Long> storedVersion = storedVersion();
+            catalogEventLog.snapshot(storedVersion.isPresent() ? itemCatalog.reload(storedVersion.get()) : saveVersion(itemCatalog.reload()));
+            return;
+        }
+        List<Item> items = itemRepository.saveAll(defaultItems());
+        promotionRuleRepository.saveAll(defaultPromotionRules());
+        log.info("Seeded the catalog with {} default items", items.size());
+        catalogEventLog.snapshot(saveVersion(itemCatalog.reload()));
+    }
+
+    /**
+     * Publishes the catalog recovered from the event log. Changes are logged after they commit, so a crash in between
+     * leaves the database ahead of the log: then the catalog is read from the database instead, with the version the
+     * database holds, and written as a new snapshot. When the database did not survive the restart, the recovered
+     * catalog is saved again first, so that orders can refer to its items.
+     */
+    private void restore(CatalogSnapshot catalog) {
+        if (itemRepository.count() > 0) {
+            Optional<Long> storedVersion = storedVersion();
+            if (storedVersion.isPresent() && storedVersion.get() > catalog.getVersion()) {
+                log.warn("The event log ends at catalog version {} but the database holds version {}, reloading the catalog from the database",
+                        catalog.getVersion(), storedVersion.get());
+                catalogEventLog.snapshot(itemCatalog.reload(storedVersion.get()));
+                return;
+            }
+            itemCatalog.install(catalog);
+            if (storedVersion.isEmpty()) {
+                saveVersion(catalog);
+            }
+            log.info("Restored catalog version {} from the event log", catalog.getVersion());
+            return;
+        }
+        List<Item> items = new ArrayList<>(catalog.getItems().size());
+        for (Item recoveredItem : catalog.getItems()) {
+            Item item = new Item(recoveredItem.getName(), recoveredItem.getType(), 0.0, recoveredItem.getDiscountRule());
+            item.setUnitPriceMicros(recoveredItem.getUnitPriceMicros());
+            items.add(item);
+        }
+        itemRepository.saveAll(items);
+        promotionRuleRepository.saveAll(catalog.getPromotionRules());
+        log.info("Saved {} items of catalog version {} recovered from the event log", items.size(), catalog.getVersion());
+        catalogEventLog.snapshot(saveVersion(itemCatalog.reload(catalog.getVersion())));
+    }
+
+    private Optional<Long> storedVersion() {
+        return catalogVersionRepository.findById(CatalogVersion.ID).map(CatalogVersion::getVersion);
+    }
+
+    private CatalogSnapshot saveVersion(CatalogSnapshot catalog) {
+        catalogVersionRepository.save(new CatalogVersion(catalog.getVersion()));
+        return catalog;
     }
 }
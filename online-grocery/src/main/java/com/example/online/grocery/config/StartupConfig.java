@@ -0,0 +1,51 @@
+package com.example.online.grocery.config;
+
+import com.example.online.grocery.dto.OrderRequestDeserializer;
+import com.example.online.grocery.entity.CatalogVersion;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.entity.OrderItem;
+import com.example.online.grocery.entity.PromotionRule;
+import com.example.online.grocery.service.PricingMetrics;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Settings for starting fast: the beans kept eager when the {@code fast-start} profile turns on lazy initialization,
+ * and the reflection a native image needs.
+ */
+@Configuration
+@ImportRuntimeHints(StartupConfig.EntityHints.class)
+public class StartupConfig {
+
+    /**
+     * Pricing meters are registered when {@link PricingMetrics} is created, and they must be there before the first
+     * order, like the JVM meters bound to the registry it pulls in.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerPricingMetrics() {
+        return LazyInitializationExcludeFilter.forBeanTypes(PricingMetrics.class);
+    }
+
+    /**
+     * Hibernate builds entities and reads their fields reflectively, and Jackson writes them out of the catalog and
+     * price endpoints and creates the order deserializer named on {@code OrderRequest}.
+     */
+    static class EntityHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (Class<?> type : new Class<?>[]{Item.class, Order.class, OrderItem.class, PromotionRule.class, CatalogVersion.class,
+                    Item.ProductType.class, PromotionRule.Kind.class}) {
+                hints.reflection().registerType(type, MemberCategory.DECLARED_FIELDS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            hints.reflection().registerType(OrderRequestDeserializer.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+    }
+}
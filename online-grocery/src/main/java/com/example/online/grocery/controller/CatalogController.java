@@ -0,0 +1,54 @@
+package com.example.online.grocery.controller;
+
+import com.example.online.grocery.dto.CatalogUpdate;
+import com.example.online.grocery.dto.CatalogView;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.PromotionRule;
+import com.example.online.grocery.service.CatalogService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1")
+public class CatalogController {
+    private final CatalogService catalogService;
+
+    public CatalogController(CatalogService catalogService) {
+        this.catalogService = catalogService;
+    }
+
+    @GetMapping(path = "/catalog")
+    public CatalogView getCatalog() {
+        return catalogService.getCatalog();
+    }
+
+    @GetMapping(path = "/items/search")
+    public List<Item> searchItems(@RequestParam("q") String query, @RequestParam(name = "limit", defaultValue = "10") int limit) {
+        return catalogService.searchItems(query, limit);
+    }
+
+    @PutMapping(value = "/catalog", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CatalogView updateCatalog(@RequestBody CatalogUpdate update) {
+        return catalogService.updateCatalog(update);
+    }
+
+    @GetMapping(path = "/promotion_rules")
+    public List<PromotionRule> getPromotionRules() {
+        return catalogService.getPromotionRules();
+    }
+
+    @PutMapping(value = "/promotion_rules", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<PromotionRule> replacePromotionRules(@RequestBody List<PromotionRule> rules) {
+        return catalogService.replacePromotionRules(rules);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+}
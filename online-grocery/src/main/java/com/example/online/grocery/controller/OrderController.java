@@ -1,31 +1,89 @@
 package com.example.online.grocery.controller;
 
-import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.dto.OrderResult;
+import com.example.online.grocery.dto.Receipt;
+import com.example.online.grocery.exceptions.IdempotencyKeyReusedException;
 import com.example.online.grocery.exceptions.ItemNotFoundException;
 import com.example.online.grocery.exceptions.NotValidOrderException;
+import com.example.online.grocery.service.IdempotentOrderService;
 import com.example.online.grocery.service.OrderService;
+import com.example.online.grocery.service.OrderStreamService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1")
 public class OrderController {
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String CATALOG_VERSION = "X-Catalog-Version";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
     @Autowired
     private final OrderService orderService;
+    private final OrderStreamService orderStreamService;
+    private final IdempotentOrderService idempotentOrderService;
+    private final ObjectReader orderReader;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderStreamService orderStreamService, IdempotentOrderService idempotentOrderService,
+                           ObjectMapper objectMapper) {
         this.orderService = orderService;
+        this.orderStreamService = orderStreamService;
+        this.idempotentOrderService = idempotentOrderService;
+        this.orderReader = objectMapper.readerFor(OrderRequest.class);
     }
 
     @PostMapping(value = "/place_order", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> placeOrderAndGetReceipt(@RequestBody Order order) throws NotValidOrderException {
-        return ResponseEntity.ok(orderService.processOrder(order));
+    public ResponseEntity<Receipt> placeOrderAndGetReceipt(@RequestBody OrderRequest order,
+                                                           @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) throws NotValidOrderException {
+        if (idempotencyKey == null) {
+            return receipt(orderService.priceOrder(order));
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException(IDEMPOTENCY_KEY + " must have 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters.");
+        }
+        return receipt(idempotentOrderService.processOrder(idempotencyKey, order));
+    }
+
+    private static ResponseEntity<Receipt> receipt(Receipt receipt) {
+        return ResponseEntity.ok()
+                .header(CATALOG_VERSION, Long.toString(receipt.catalogVersion()))
+                .body(receipt);
+    }
+
+    @PostMapping(value = "/place_orders", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<OrderResult> placeOrdersAndGetReceipts(@RequestBody List<OrderRequest> orders) {
+        return orderService.processOrders(orders);
+    }
+
+    @PostMapping(value = "/place_orders", consumes = APPLICATION_NDJSON_VALUE)
+    public List<OrderResult> placeNdjsonOrdersAndGetReceipts(HttpServletRequest request) throws IOException {
+        try (MappingIterator<OrderRequest> orders = orderReader.readValues(request.getInputStream())) {
+            return orderService.processOrders(orders.readAll());
+        }
+    }
+
+    @PostMapping(value = "/place_orders/stream", consumes = APPLICATION_NDJSON_VALUE, produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOrdersAndReceipts(HttpServletRequest request) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(out -> orderStreamService.processOrders(request.getInputStream(), out));
     }
 
     @GetMapping(path = "/discount_rules")
@@ -55,4 +113,16 @@ public class OrderController {
     public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
     }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ResponseEntity<String> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException ex) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(JsonProcessingException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<String> handleJsonProcessingException(JsonProcessingException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getOriginalMessage());
+    }
 }
@@ -0,0 +1,47 @@
+package com.example.online.grocery.controller;
+
+import com.example.online.grocery.dto.OrderPage;
+import com.example.online.grocery.service.OrderHistoryService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1")
+public class OrderHistoryController {
+    private final OrderHistoryService orderHistoryService;
+
+    public OrderHistoryController(OrderHistoryService orderHistoryService) {
+        this.orderHistoryService = orderHistoryService;
+    }
+
+    @GetMapping(path = "/orders")
+    public OrderPage getOrders(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant afterPlacedAt,
+                               @RequestParam(required = false) Integer afterOrderId,
+                               @RequestParam(defaultValue = "50") int limit) {
+        return orderHistoryService.findOrders(from, to, afterPlacedAt, afterOrderId, limit);
+    }
+
+    @GetMapping(path = "/orders/export", produces = OrderController.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(OrderController.APPLICATION_NDJSON_VALUE))
+                .body(out -> orderHistoryService.exportOrders(from, to, out));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.online.grocery.controller;
+
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.dto.OrderResult;
+import com.example.online.grocery.dto.Receipt;
+import com.example.online.grocery.exceptions.IdempotencyKeyReusedException;
+import com.example.online.grocery.exceptions.ItemNotFoundException;
+import com.example.online.grocery.exceptions.NotValidOrderException;
+import com.example.online.grocery.service.CatalogSnapshot;
+import com.example.online.grocery.service.IdempotentOrderService;
+import com.example.online.grocery.service.ItemCatalog;
+import com.example.online.grocery.service.OrderService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The order endpoints of {@link OrderController} on WebFlux, for the {@code reactive} profile. Orders are priced on the
+ * pricing executor rather than on the event loop, since large baskets and batches take long enough to stall every
+ * connection of the loop, and priced orders are saved by {@link com.example.online.grocery.service.ReactiveOrderWriter}
+ * without waiting for the database.
+ */
+@RestController
+@RequestMapping("/api/v1")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOrderController {
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    private final OrderService orderService;
+    private final IdempotentOrderService idempotentOrderService;
+    private final ItemCatalog itemCatalog;
+    private final ExecutorService pricingExecutor;
+    private final Scheduler pricing;
+    private final int maxInFlight;
+
+    public ReactiveOrderController(OrderService orderService, IdempotentOrderService idempotentOrderService, ItemCatalog itemCatalog,
+                                   @Qualifier("pricingExecutor") ExecutorService pricingExecutor,
+                                   @Value("${grocery.streaming.max-in-flight:256}") int maxInFlight) {
+        this.orderService = orderService;
+        this.idempotentOrderService = idempotentOrderService;
+        this.itemCatalog = itemCatalog;
+        this.pricingExecutor = pricingExecutor;
+        this.pricing = Schedulers.fromExecutorService(pricingExecutor, "pricing");
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    @PostMapping(value = "/place_order", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Receipt>> placeOrderAndGetReceipt(@RequestBody OrderRequest order,
+                                                                 @RequestHeader(value = OrderController.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return Mono.fromCallable(() -> orderService.priceOrder(order))
+                    .subscribeOn(pricing)
+                    .map(ReactiveOrderController::receipt);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException(OrderController.IDEMPOTENCY_KEY + " must have 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters.");
+        }
+        return Mono.fromFuture(() -> idempotentOrderService.priceOrder(idempotencyKey, order, pricingExecutor))
+                .map(ReactiveOrderController::receipt);
+    }
+
+    private static ResponseEntity<Receipt> receipt(Receipt receipt) {
+        return ResponseEntity.ok()
+                .header(OrderController.CATALOG_VERSION, Long.toString(receipt.catalogVersion()))
+                .body(receipt);
+    }
+
+    @PostMapping(value = "/place_orders", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<List<OrderResult>> placeOrdersAndGetReceipts(@RequestBody List<OrderRequest> orders) {
+        return Mono.fromCallable(() -> orderService.processOrders(orders))
+                .subscribeOn(pricing);
+    }
+
+    @PostMapping(value = "/place_orders", consumes = OrderController.APPLICATION_NDJSON_VALUE)
+    public Mono<List<OrderResult>> placeNdjsonOrdersAndGetReceipts(@RequestBody Flux<OrderRequest> orders) {
+        return orders.collectList().flatMap(this::placeOrdersAndGetReceipts);
+    }
+
+    /**
+     * Prices every order as soon as it is decoded, with at most {@code grocery.streaming.max-in-flight} being priced at
+     * once, and streams the results back in input order. An order that can not be read ends the stream with an error
+     * result, after the results of the orders before it.
+     */
+    @PostMapping(value = "/place_orders/stream", consumes = OrderController.APPLICATION_NDJSON_VALUE, produces = OrderController.APPLICATION_NDJSON_VALUE)
+    public Flux<OrderResult> streamOrdersAndReceipts(@RequestBody Flux<OrderRequest> orders) {
+        return Flux.defer(() -> {
+            CatalogSnapshot catalog = itemCatalog.snapshot();
+            AtomicInteger index = new AtomicInteger();
+            return orders.flatMapSequentialDelayError(order -> {
+                                int orderIndex = index.getAndIncrement();
+                                return Mono.fromCallable(() -> orderService.processOrderInBatch(orderIndex, order, catalog))
+                                        .subscribeOn(pricing);
+                            }, maxInFlight, 1)
+                    .onErrorResume(ServerWebInputException.class, ex -> Mono.just(OrderResult.error(index.get(), "Order could not be read: " + readError(ex))));
+        });
+    }
+
+    @GetMapping(path = "/discount_rules")
+    public List<String> getDiscountRules() {
+        return orderService.getAllDiscountRules();
+    }
+
+    @GetMapping(path = "/prices")
+    public Map<String, Double> getPrices() {
+        return orderService.getPricesItemWise();
+    }
+
+    private static String readError(ServerWebInputException ex) {
+        return ex.getMostSpecificCause() instanceof JsonProcessingException cause ? cause.getOriginalMessage() : ex.getMessage();
+    }
+
+    @ExceptionHandler(NotValidOrderException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<String> handleNotValidOrderException(NotValidOrderException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(ItemNotFoundException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<String> handleItemNotFoundException(ItemNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ResponseEntity<String> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException ex) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ex.getMessage());
+    }
+}
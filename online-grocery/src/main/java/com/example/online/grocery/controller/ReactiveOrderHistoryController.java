@@ -0,0 +1,46 @@
+package com.example.online.grocery.controller;
+
+import com.example.online.grocery.dto.OrderPage;
+import com.example.online.grocery.dto.OrderSummary;
+import com.example.online.grocery.service.ReactiveOrderHistoryService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/api/v1")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOrderHistoryController {
+    private final ReactiveOrderHistoryService orderHistoryService;
+
+    public ReactiveOrderHistoryController(ReactiveOrderHistoryService orderHistoryService) {
+        this.orderHistoryService = orderHistoryService;
+    }
+
+    @GetMapping(path = "/orders")
+    public Mono<OrderPage> getOrders(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant afterPlacedAt,
+                                     @RequestParam(required = false) Integer afterOrderId,
+                                     @RequestParam(defaultValue = "50") int limit) {
+        return orderHistoryService.findOrders(from, to, afterPlacedAt, afterOrderId, limit);
+    }
+
+    @GetMapping(path = "/orders/export", produces = OrderController.APPLICATION_NDJSON_VALUE)
+    public Flux<OrderSummary> exportOrders(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        return orderHistoryService.exportOrders(from, to);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.online.grocery.controller;
+
+import com.example.online.grocery.dto.SalesStats;
+import com.example.online.grocery.service.SalesAggregates;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1")
+public class StatsController {
+    private final SalesAggregates salesAggregates;
+
+    public StatsController(SalesAggregates salesAggregates) {
+        this.salesAggregates = salesAggregates;
+    }
+
+    @GetMapping(path = "/stats")
+    public SalesStats getStats() {
+        return salesAggregates.stats();
+    }
+}
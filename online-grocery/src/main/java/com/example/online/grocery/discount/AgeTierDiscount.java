@@ -0,0 +1,58 @@
+package com.example.online.grocery.discount;
+
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.util.Money;
+
+final class AgeTierDiscount implements DiscountEvaluator {
+    private static final int TABLE_AGES = 8;
+    private static final int TABLE_QUANTITIES = 64;
+
+    private final int[] upToDays;
+    private final int[] buy;
+    private final int[] free;
+    private final int maxAge;
+    private final String maxAgeMessage;
+    private final String missingAgeMessage;
+    // free items for every (age, quantity) pair small enough to be looked up instead of calculated
+    private final int[] freeItemsTable = new int[TABLE_AGES * TABLE_QUANTITIES];
+
+    AgeTierDiscount(int[] upToDays, int[] buy, int[] free, int maxAge, String maxAgeMessage, String missingAgeMessage) {
+        this.upToDays = upToDays;
+        this.buy = buy;
+        this.free = free;
+        this.maxAge = maxAge;
+        this.maxAgeMessage = maxAgeMessage;
+        this.missingAgeMessage = missingAgeMessage;
+        for (int age = 0; age < TABLE_AGES; age++) {
+            for (int quantity = 0; quantity < TABLE_QUANTITIES; quantity++) {
+                freeItemsTable[age * TABLE_QUANTITIES + quantity] = freeItems(age, quantity);
+            }
+        }
+    }
+
+    @Override
+    public long discount(OrderRequest.Line line, long priceMicros) {
+        Integer lineAge = line.age();
+        if (lineAge == null) {
+            throw new IllegalArgumentException(missingAgeMessage);
+        }
+        int age = lineAge;
+        if (age > maxAge) {
+            throw new IllegalArgumentException(maxAgeMessage);
+        }
+        int quantity = line.quantity();
+        if ((age | quantity) >= 0 && age < TABLE_AGES && quantity < TABLE_QUANTITIES) {
+            return Money.times(priceMicros, freeItemsTable[age * TABLE_QUANTITIES + quantity]);
+        }
+        return Money.times(priceMicros, freeItems(age, quantity));
+    }
+
+    private int freeItems(int age, int quantity) {
+        for (int i = 0; i < upToDays.length; i++) {
+            if (age <= upToDays[i]) {
+                return Math.max(0, free[i] * (quantity / buy[i]));
+            }
+        }
+        return 0;
+    }
+}
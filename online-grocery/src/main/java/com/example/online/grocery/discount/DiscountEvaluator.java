@@ -0,0 +1,12 @@
+package com.example.online.grocery.discount;
+
+import com.example.online.grocery.dto.OrderRequest;
+
+public interface DiscountEvaluator {
+    DiscountEvaluator NONE = (line, priceMicros) -> 0L;
+
+    /**
+     * Discount in micro-euros for a line of the given unit price.
+     */
+    long discount(OrderRequest.Line line, long priceMicros);
+}
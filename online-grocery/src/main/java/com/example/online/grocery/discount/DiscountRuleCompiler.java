@@ -0,0 +1,114 @@
+package com.example.online.grocery.discount;
+
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.PromotionRule;
+import com.example.online.grocery.util.Money;
+
+import java.util.*;
+
+public final class DiscountRuleCompiler {
+
+    private DiscountRuleCompiler() {
+    }
+
+    /**
+     * Compiles the promotion rules into one evaluator per product type, indexed by {@link Item.ProductType#ordinal()}.
+     * Product types without rules get {@link DiscountEvaluator#NONE}.
+     */
+    public static DiscountEvaluator[] compile(List<PromotionRule> rules) throws IllegalArgumentException {
+        Map<Item.ProductType, List<PromotionRule>> rulesPerType = new EnumMap<>(Item.ProductType.class);
+        for (PromotionRule rule : rules) {
+            if (rule.getProductType() == null || rule.getKind() == null) {
+                throw new IllegalArgumentException("Promotion rule needs a product type and a kind.");
+            }
+            rulesPerType.computeIfAbsent(rule.getProductType(), type -> new ArrayList<>()).add(rule);
+        }
+        DiscountEvaluator[] evaluators = new DiscountEvaluator[Item.ProductType.values().length];
+        Arrays.fill(evaluators, DiscountEvaluator.NONE);
+        rulesPerType.forEach((type, typeRules) -> evaluators[type.ordinal()] = compile(type, typeRules));
+        return evaluators;
+    }
+
+    private static DiscountEvaluator compile(Item.ProductType type, List<PromotionRule> rules) {
+        Set<PromotionRule.Kind> kinds = EnumSet.noneOf(PromotionRule.Kind.class);
+        rules.forEach(rule -> kinds.add(rule.getKind()));
+        if (kinds.equals(EnumSet.of(PromotionRule.Kind.WEIGHT_TIER))) {
+            return compileWeightTiers(type, rules);
+        }
+        if (EnumSet.of(PromotionRule.Kind.AGE_TIER, PromotionRule.Kind.MAX_AGE).containsAll(kinds)) {
+            return compileAgeTiers(type, rules);
+        }
+        if (kinds.equals(EnumSet.of(PromotionRule.Kind.PACK))) {
+            return compilePack(type, rules);
+        }
+        throw new IllegalArgumentException("Promotion rules of kinds " + kinds + " can not be combined for " + type + ".");
+    }
+
+    private static DiscountEvaluator compileWeightTiers(Item.ProductType type, List<PromotionRule> rules) {
+        List<PromotionRule> tiers = sortedTiers(type, rules);
+        long[] upToMilligrams = new long[tiers.size()];
+        int[] basisPoints = new int[tiers.size()];
+        for (int i = 0; i < tiers.size(); i++) {
+            PromotionRule tier = tiers.get(i);
+            if (tier.getPercentBasisPoints() < 0 || tier.getPercentBasisPoints() > 10000) {
+                throw new IllegalArgumentException("Weight tier discount for " + type + " must be between 0 and 10000 basis points.");
+            }
+            upToMilligrams[i] = upperBound(tier) == Double.POSITIVE_INFINITY ? Long.MAX_VALUE : Money.milligrams(upperBound(tier));
+            basisPoints[i] = tier.getPercentBasisPoints();
+        }
+        return new WeightTierDiscount(upToMilligrams, basisPoints);
+    }
+
+    private static DiscountEvaluator compileAgeTiers(Item.ProductType type, List<PromotionRule> rules) {
+        List<PromotionRule> maxAges = rules.stream().filter(rule -> rule.getKind() == PromotionRule.Kind.MAX_AGE).toList();
+        if (maxAges.size() > 1) {
+            throw new IllegalArgumentException("Only one maximum age can be set for " + type + ".");
+        }
+        int maxAge = maxAges.isEmpty() ? Integer.MAX_VALUE : wholeDays(upperBound(maxAges.get(0)));
+        String maxAgeMessage = maxAges.isEmpty() ? null : maxAges.get(0).getMessage();
+        List<PromotionRule> tiers = sortedTiers(type, rules.stream().filter(rule -> rule.getKind() == PromotionRule.Kind.AGE_TIER).toList());
+        int[] upToDays = new int[tiers.size()];
+        int[] buy = new int[tiers.size()];
+        int[] free = new int[tiers.size()];
+        for (int i = 0; i < tiers.size(); i++) {
+            PromotionRule tier = tiers.get(i);
+            if (tier.getBuy() <= 0 || tier.getFree() < 0 || tier.getFree() > tier.getBuy()) {
+                throw new IllegalArgumentException("Age tier for " + type + " needs buy > 0 and 0 <= free <= buy.");
+            }
+            upToDays[i] = wholeDays(upperBound(tier));
+            buy[i] = tier.getBuy();
+            free[i] = tier.getFree();
+        }
+        return new AgeTierDiscount(upToDays, buy, free, maxAge, maxAgeMessage, "The age in days must be given for " + type.productName() + ".");
+    }
+
+    private static DiscountEvaluator compilePack(Item.ProductType type, List<PromotionRule> rules) {
+        if (rules.size() > 1) {
+            throw new IllegalArgumentException("Only one pack discount can be set for " + type + ".");
+        }
+        PromotionRule rule = rules.get(0);
+        if (rule.getPackSize() <= 0 || rule.getAmountPerPackMicros() < 0) {
+            throw new IllegalArgumentException("Pack discount for " + type + " needs a positive pack size and a non negative amount.");
+        }
+        return new PackDiscount(rule.getPackSize(), rule.getAmountPerPackMicros());
+    }
+
+    private static List<PromotionRule> sortedTiers(Item.ProductType type, List<PromotionRule> tiers) {
+        List<PromotionRule> sorted = new ArrayList<>(tiers);
+        sorted.sort(Comparator.comparingDouble(DiscountRuleCompiler::upperBound));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (upperBound(sorted.get(i - 1)) == upperBound(sorted.get(i))) {
+                throw new IllegalArgumentException("Tiers for " + type + " must have different upper bounds.");
+            }
+        }
+        return sorted;
+    }
+
+    private static int wholeDays(double upTo) {
+        return upTo >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.floor(upTo);
+    }
+
+    private static double upperBound(PromotionRule rule) {
+        return rule.getUpTo() == null ? Double.POSITIVE_INFINITY : rule.getUpTo();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.online.grocery.discount;
+
+import com.example.online.grocery.dto.OrderRequest;
+
+final class PackDiscount implements DiscountEvaluator {
+    private final int packSize;
+    private final long microsPerPack;
+
+    PackDiscount(int packSize, long microsPerPack) {
+        this.packSize = packSize;
+        this.microsPerPack = microsPerPack;
+    }
+
+    @Override
+    public long discount(OrderRequest.Line line, long priceMicros) {
+        int packs = line.quantity() / packSize;
+        if (packs <= 0) return 0L;
+        return microsPerPack * packs;
+    }
+}
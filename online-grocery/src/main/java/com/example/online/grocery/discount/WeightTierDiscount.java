@@ -0,0 +1,38 @@
+package com.example.online.grocery.discount;
+
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.util.Money;
+
+final class WeightTierDiscount implements DiscountEvaluator {
+    private final long[] upToMilligrams;
+    private final int[] basisPoints;
+    // the first three tiers are unrolled, which covers every promotion we run today
+    private final long upTo0, upTo1, upTo2;
+    private final int basisPoints0, basisPoints1, basisPoints2;
+
+    WeightTierDiscount(long[] upToMilligrams, int[] basisPoints) {
+        this.upToMilligrams = upToMilligrams;
+        this.basisPoints = basisPoints;
+        this.upTo0 = upToMilligrams.length > 0 ? upToMilligrams[0] : Long.MAX_VALUE;
+        this.upTo1 = upToMilligrams.length > 1 ? upToMilligrams[1] : Long.MAX_VALUE;
+        this.upTo2 = upToMilligrams.length > 2 ? upToMilligrams[2] : Long.MAX_VALUE;
+        this.basisPoints0 = basisPoints.length > 0 ? basisPoints[0] : 0;
+        this.basisPoints1 = basisPoints.length > 1 ? basisPoints[1] : 0;
+        this.basisPoints2 = basisPoints.length > 2 ? basisPoints[2] : 0;
+    }
+
+    @Override
+    public long discount(OrderRequest.Line line, long priceMicros) {
+        long milligrams = Money.milligrams(line.weight());
+        long price = Money.perHundredGrams(priceMicros, milligrams);
+        if (milligrams <= upTo0) return Money.percentage(price, basisPoints0);
+        if (milligrams <= upTo1) return Money.percentage(price, basisPoints1);
+        if (milligrams <= upTo2) return Money.percentage(price, basisPoints2);
+        for (int i = 3; i < upToMilligrams.length; i++) {
+            if (milligrams <= upToMilligrams[i]) {
+                return Money.percentage(price, basisPoints[i]);
+            }
+        }
+        return 0L;
+    }
+}
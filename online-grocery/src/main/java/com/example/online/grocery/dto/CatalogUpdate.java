@@ -0,0 +1,17 @@
+package com.example.online.grocery.dto;
+
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.PromotionRule;
+
+import java.util.List;
+
+/**
+ * A bulk catalog change. Items are matched by name: existing items get the given price (and type or discount rule
+ * when present), unknown names are added and need a type. Promotion rules replace the rules of every product type
+ * they mention.
+ */
+public record CatalogUpdate(List<ItemUpdate> items, List<PromotionRule> promotionRules) {
+
+    public record ItemUpdate(String name, Item.ProductType type, double unitPrice, String discountRule) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.online.grocery.dto;
+
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.PromotionRule;
+
+import java.util.List;
+
+public record CatalogView(long version, List<Item> items, List<PromotionRule> promotionRules) {
+}
@@ -0,0 +1,7 @@
+package com.example.online.grocery.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record OrderLine(String name, int quantity, Integer age, String origin, double weight, double price, double discount) {
+}
@@ -0,0 +1,17 @@
+package com.example.online.grocery.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One page of the order history. Pass {@code next} back as {@code afterPlacedAt} and {@code afterOrderId} to read
+ * the page after it; it is null on the last page.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record OrderPage(List<OrderSummary> orders, Cursor next) {
+
+    public record Cursor(Instant placedAt, int orderId) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.online.grocery.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.util.List;
+
+/**
+ * An order as it is posted. Lines that leave out quantity or weight have zero for it, and a line that leaves out its
+ * age has none, which bread is rejected for. Read by {@link OrderRequestDeserializer} and priced as it is; entities are
+ * built from the priced order only when it is persisted.
+ */
+@JsonDeserialize(using = OrderRequestDeserializer.class)
+public record OrderRequest(List<Line> orderItems) {
+
+    public record Line(String name, int quantity, Integer age, String origin, double weight) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.online.grocery.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads an {@link OrderRequest} straight off the token stream, without reflection or intermediate trees. Unknown
+ * fields are skipped, so orders written with the price and discount fields of a receipt are still accepted.
+ * Numbers and nulls are coerced the way Jackson coerces them for primitive fields, except that a missing or null age
+ * stays null.
+ */
+public class OrderRequestDeserializer extends StdDeserializer<OrderRequest> {
+
+    public OrderRequestDeserializer() {
+        super(OrderRequest.class);
+    }
+
+    @Override
+    public OrderRequest deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME) {
+            return (OrderRequest) ctxt.handleUnexpectedToken(OrderRequest.class, p);
+        }
+        List<OrderRequest.Line> orderItems = null;
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.currentName();
+            token = p.nextToken();
+            if (field.equals("orderItems")) {
+                orderItems = readLines(p, ctxt, token);
+            } else {
+                p.skipChildren();
+            }
+        }
+        return new OrderRequest(orderItems);
+    }
+
+    private List<OrderRequest.Line> readLines(JsonParser p, DeserializationContext ctxt, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            ctxt.handleUnexpectedToken(List.class, p);
+            return null;
+        }
+        List<OrderRequest.Line> lines = new ArrayList<>();
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                ctxt.handleUnexpectedToken(OrderRequest.Line.class, p);
+                p.skipChildren();
+                continue;
+            }
+            lines.add(readLine(p, ctxt));
+        }
+        return lines;
+    }
+
+    private OrderRequest.Line readLine(JsonParser p, DeserializationContext ctxt) throws IOException {
+        String name = null;
+        int quantity = 0;
+        Integer age = null;
+        String origin = null;
+        double weight = 0.0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "name" -> name = readString(p, ctxt);
+                case "quantity" -> quantity = _parseIntPrimitive(p, ctxt);
+                case "age" -> age = p.currentToken() == JsonToken.VALUE_NULL ? null : _parseIntPrimitive(p, ctxt);
+                case "origin" -> origin = readString(p, ctxt);
+                case "weight" -> weight = _parseDoublePrimitive(p, ctxt);
+                default -> p.skipChildren();
+            }
+        }
+        return new OrderRequest.Line(name, quantity, age, origin, weight);
+    }
+
+    private static String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return switch (p.currentToken()) {
+            case VALUE_STRING -> p.getText();
+            case VALUE_NULL -> null;
+            default -> (String) ctxt.handleUnexpectedToken(String.class, p);
+        };
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.online.grocery.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record OrderResult(int index, String receipt, Long catalogVersion, String error) {
+
+    public static OrderResult receipt(int index, Receipt receipt) {
+        return new OrderResult(index, receipt.text(), receipt.catalogVersion(), null);
+    }
+
+    public static OrderResult error(int index, String error) {
+        return new OrderResult(index, null, null, error);
+    }
+}
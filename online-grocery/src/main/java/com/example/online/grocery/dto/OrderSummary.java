@@ -0,0 +1,7 @@
+package com.example.online.grocery.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record OrderSummary(int orderId, Instant placedAt, long catalogVersion, double totalPrice, List<OrderLine> orderItems) {
+}
@@ -0,0 +1,7 @@
+package com.example.online.grocery.dto;
+
+/**
+ * A rendered receipt together with the version of the catalog its prices and discounts came from.
+ */
+public record Receipt(String text, long catalogVersion) {
+}
@@ -0,0 +1,19 @@
+package com.example.online.grocery.dto;
+
+import com.example.online.grocery.entity.Item;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Sales since the application started. Revenue is what customers paid, after discounts; weight is in grams.
+ */
+public record SalesStats(long orders, Totals total, Map<Item.ProductType, Totals> byType, Map<String, Totals> byOrigin,
+                         Map<LocalDate, DailySales> byDay) {
+
+    public record Totals(long lines, long units, double weight, double revenue, double discount) {
+    }
+
+    public record DailySales(long orders, Totals total, Map<Item.ProductType, Totals> byType) {
+    }
+}
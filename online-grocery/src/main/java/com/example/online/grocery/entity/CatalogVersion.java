@@ -0,0 +1,32 @@
+package com.example.online.grocery.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * The catalog version the database holds, in a single row that every catalog change updates in its own transaction.
+ * A restart compares it with the version recovered from the catalog event log to tell whether the log fell behind.
+ */
+@Entity
+@Table
+public class CatalogVersion {
+    public static final int ID = 1;
+
+    @Id
+    private int catalogVersionId = ID;
+    private long version;
+
+    public CatalogVersion() {
+    }
+
+    public CatalogVersion(long version) {
+        this.version = version;
+    }
+
+    public int getCatalogVersionId() {
+        return catalogVersionId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -1,24 +1,106 @@
 package com.example.online.grocery.entity;
 
+import com.example.online.grocery.util.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Entity
-@Table
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_item_name", columnNames = "name"))
 public class Item {
     public enum ProductType{
-        BREAD,
-        VEGETABLE,
-        BEER,
-        DUTCH_BEER,
-        GERMAN_BEER,
-        BELGIUM_BEER
+        BREAD("bread", null),
+        VEGETABLE("vegetable", null),
+        BEER("beer", null),
+        DUTCH_BEER("Dutch beer", Origin.DUTCH),
+        GERMAN_BEER("German beer", Origin.GERMAN),
+        BELGIUM_BEER("Belgium beer", Origin.BELGIUM);
+
+        private static final Map<String, ProductType> BY_PRODUCT_NAME = new HashMap<>();
+        private static final ProductType[] BY_ORIGIN = new ProductType[Origin.values().length];
+
+        static {
+            for (ProductType type : values()) {
+                BY_PRODUCT_NAME.put(type.productName, type);
+                if (type.origin != null) {
+                    BY_ORIGIN[type.origin.ordinal()] = type;
+                }
+            }
+        }
+
+        private final String productName;
+        private final Origin origin;
+
+        ProductType(String productName, Origin origin) {
+            this.productName = productName;
+            this.origin = origin;
+        }
+
+        /**
+         * The type whose standard product has exactly this name, such as "bread" or "Dutch beer", or {@code null}.
+         * Items added to the catalog under other names have a type but are not a standard product.
+         */
+        public static ProductType named(String name) {
+            return name == null ? null : BY_PRODUCT_NAME.get(name);
+        }
+
+        /**
+         * The beer type of this origin, such as DUTCH_BEER for DUTCH, or {@code null} for a {@code null} origin.
+         */
+        public static ProductType ofOrigin(Origin origin) {
+            return origin == null ? null : BY_ORIGIN[origin.ordinal()];
+        }
+
+        public String productName() {
+            return productName;
+        }
+
+        /**
+         * The origin beers of this type are combined by, or {@code null} for types that are not sold by origin.
+         */
+        public Origin origin() {
+            return origin;
+        }
+    }
+
+    public enum Origin {
+        DUTCH("Dutch"),
+        GERMAN("German"),
+        BELGIUM("Belgium");
+
+        private static final Map<String, Origin> BY_LABEL = new HashMap<>();
+
+        static {
+            for (Origin origin : values()) {
+                BY_LABEL.put(origin.label, origin);
+            }
+        }
+
+        private final String label;
+
+        Origin(String label) {
+            this.label = label;
+        }
+
+        /**
+         * The origin with exactly this label, such as "Dutch", or {@code null}.
+         */
+        public static Origin of(String label) {
+            return label == null ? null : BY_LABEL.get(label);
+        }
+
+        public String label() {
+            return label;
+        }
     }
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private int itemId;
     private String name;
     private  ProductType type;
-    private  double unitPrice;
+    private  long unitPriceMicros;
     private  String discountRule;
 
 
@@ -26,7 +108,7 @@ public class Item {
         this.itemId = itemId;
         this.name = name;
         this.type = type;
-        this.unitPrice = unitPrice;
+        this.unitPriceMicros = Money.ofEuros(unitPrice);
         this.discountRule = discountRule;
 
     }
@@ -34,7 +116,7 @@ public class Item {
     public Item(String name,double unitPrice,ProductType type) {
         this.name = name;
         this.type = type;
-        this.unitPrice = unitPrice;
+        this.unitPriceMicros = Money.ofEuros(unitPrice);
     }
 
     public Item() {
@@ -43,7 +125,7 @@ public class Item {
     public Item(String name, ProductType type, double unitPrice, String discountRule) {
         this.name = name;
         this.type = type;
-        this.unitPrice = unitPrice;
+        this.unitPriceMicros = Money.ofEuros(unitPrice);
         this.discountRule = discountRule;
     }
 
@@ -60,10 +142,27 @@ public class Item {
     }
 
     public double getUnitPrice() {
-        return unitPrice;
+        return Money.toEuros(unitPriceMicros);
+    }
+
+    @JsonIgnore
+    public long getUnitPriceMicros() {
+        return unitPriceMicros;
     }
 
     public String getDiscountRule() {
         return discountRule;
     }
+
+    public void setType(ProductType type) {
+        this.type = type;
+    }
+
+    public void setUnitPriceMicros(long unitPriceMicros) {
+        this.unitPriceMicros = unitPriceMicros;
+    }
+
+    public void setDiscountRule(String discountRule) {
+        this.discountRule = discountRule;
+    }
 }
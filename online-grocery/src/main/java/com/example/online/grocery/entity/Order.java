@@ -1,22 +1,28 @@
 package com.example.online.grocery.entity;
 
+import com.example.online.grocery.util.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.time.Instant;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "ix_orders_placed_at", columnList = "placedAt, orderId"))
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private int orderId;
-    private double totalPrice;
+    private long totalPriceMicros;
+    private long catalogVersion;
+    private Instant placedAt;
     @OneToMany(cascade = CascadeType.ALL,mappedBy = "order")
     private List<OrderItem> orderItems;
 
     public Order(int orderId, double totalPrice, List<OrderItem> orderItems) {
         this.orderId = orderId;
-        this.totalPrice = totalPrice;
+        this.totalPriceMicros = Money.ofEuros(totalPrice);
         this.orderItems = orderItems;
     }
 
@@ -27,12 +33,39 @@ public class Order {
         this.orderItems = orderItems;
     }
 
+    public int getOrderId() {
+        return orderId;
+    }
+
     public double getTotalPrice() {
-        return totalPrice;
+        return Money.toEuros(totalPriceMicros);
+    }
+
+    @JsonIgnore
+    public long getTotalPriceMicros() {
+        return totalPriceMicros;
+    }
+
+    public void setTotalPriceMicros(long totalPriceMicros) {
+        this.totalPriceMicros = totalPriceMicros;
+    }
+
+    @JsonIgnore
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public void setCatalogVersion(long catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    @JsonIgnore
+    public Instant getPlacedAt() {
+        return placedAt;
     }
 
-    public void setTotalPrice(double totalPrice) {
-        this.totalPrice = totalPrice;
+    public void setPlacedAt(Instant placedAt) {
+        this.placedAt = placedAt;
     }
 
     public List<OrderItem> getOrderItems() {
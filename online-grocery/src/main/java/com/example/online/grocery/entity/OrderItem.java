@@ -1,29 +1,32 @@
 package com.example.online.grocery.entity;
 
+import com.example.online.grocery.util.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.annotation.Nullable;
 import jakarta.persistence.*;
 import org.hibernate.annotations.Cascade;
 
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "ix_order_item_order", columnList = "orderId"),
+        @Index(name = "ix_order_item_item", columnList = "itemId")})
 public class OrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+    @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq", allocationSize = 50)
     private int orderItemId;
     private String name;
     private int quantity;
 
-    private double price;
-    private double discount;
+    private long priceMicros;
+    private long discountMicros;
     @Nullable
     private Integer age;
     @Nullable
     private String origin;
-    @Nullable
-    private Double weight;
+    private double weight;
     @ManyToOne
     @JoinColumn(name = "itemId")
-    @Cascade(org.hibernate.annotations.CascadeType.PERSIST)
     private Item item;
     @ManyToOne
     @JoinColumn(name = "orderId")
@@ -34,8 +37,8 @@ public class OrderItem {
         this.orderItemId = orderItemId;
         this.name = name;
         this.quantity = quantity;
-        this.price = price;
-        this.discount = discount;
+        this.priceMicros = Money.ofEuros(price);
+        this.discountMicros = Money.ofEuros(discount);
         this.age = age;
         this.origin = origin;
         this.weight = weight;
@@ -43,7 +46,7 @@ public class OrderItem {
         this.order = order;
     }
 
-    public OrderItem(String name, int quantity, int age, double weight, String origin) {
+    public OrderItem(String name, int quantity, Integer age, double weight, String origin) {
         this.name = name;
         this.quantity = quantity;
         this.age = age;
@@ -77,19 +80,29 @@ public class OrderItem {
 
 
     public double getPrice() {
-        return price;
+        return Money.toEuros(priceMicros);
+    }
+
+    @JsonIgnore
+    public long getPriceMicros() {
+        return priceMicros;
     }
 
-    public void setPrice(double price) {
-        this.price = price;
+    public void setPriceMicros(long priceMicros) {
+        this.priceMicros = priceMicros;
     }
 
     public double getDiscount() {
-        return discount;
+        return Money.toEuros(discountMicros);
+    }
+
+    @JsonIgnore
+    public long getDiscountMicros() {
+        return discountMicros;
     }
 
-    public void setDiscount(double discount) {
-        this.discount = discount;
+    public void setDiscountMicros(long discountMicros) {
+        this.discountMicros = discountMicros;
     }
 
     public Item getItem() {
@@ -100,6 +113,7 @@ public class OrderItem {
         this.item = item;
     }
 
+    @JsonIgnore
     public Order getOrder() {
         return order;
     }
@@ -116,7 +130,7 @@ public class OrderItem {
         return origin;
     }
 
-    public Double getWeight() {
+    public double getWeight() {
         return weight;
     }
 
@@ -0,0 +1,116 @@
+package com.example.online.grocery.entity;
+
+import com.example.online.grocery.util.Money;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.Nullable;
+import jakarta.persistence.*;
+
+@Entity
+@Table
+public class PromotionRule {
+    public enum Kind {
+        WEIGHT_TIER,
+        AGE_TIER,
+        MAX_AGE,
+        PACK
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int ruleId;
+    private Item.ProductType productType;
+    private Kind kind;
+    @Nullable
+    private Double upTo;
+    private int percentBasisPoints;
+    private int buy;
+    private int free;
+    private int packSize;
+    private long amountPerPackMicros;
+    @Nullable
+    private String message;
+
+    public PromotionRule(Item.ProductType productType, Kind kind, Double upTo, int percentBasisPoints, int buy, int free, int packSize, double amountPerPack, String message) {
+        this.productType = productType;
+        this.kind = kind;
+        this.upTo = upTo;
+        this.percentBasisPoints = percentBasisPoints;
+        this.buy = buy;
+        this.free = free;
+        this.packSize = packSize;
+        this.amountPerPackMicros = Money.ofEuros(amountPerPack);
+        this.message = message;
+    }
+
+    public PromotionRule() {
+    }
+
+    public static PromotionRule weightTier(Item.ProductType productType, Double upToGrams, int percentBasisPoints) {
+        return new PromotionRule(productType, Kind.WEIGHT_TIER, upToGrams, percentBasisPoints, 0, 0, 0, 0.0, null);
+    }
+
+    public static PromotionRule ageTier(Item.ProductType productType, Double upToDays, int buy, int free) {
+        return new PromotionRule(productType, Kind.AGE_TIER, upToDays, 0, buy, free, 0, 0.0, null);
+    }
+
+    public static PromotionRule maxAge(Item.ProductType productType, double maxDays, String message) {
+        return new PromotionRule(productType, Kind.MAX_AGE, maxDays, 0, 0, 0, 0, 0.0, message);
+    }
+
+    public static PromotionRule pack(Item.ProductType productType, int packSize, double amountPerPack) {
+        return new PromotionRule(productType, Kind.PACK, null, 0, 0, 0, packSize, amountPerPack, null);
+    }
+
+    public int getRuleId() {
+        return ruleId;
+    }
+
+    public Item.ProductType getProductType() {
+        return productType;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Double getUpTo() {
+        return upTo;
+    }
+
+    public int getPercentBasisPoints() {
+        return percentBasisPoints;
+    }
+
+    public int getBuy() {
+        return buy;
+    }
+
+    public int getFree() {
+        return free;
+    }
+
+    public int getPackSize() {
+        return packSize;
+    }
+
+    @JsonProperty("amountPerPack")
+    public double getAmountPerPack() {
+        return Money.toEuros(amountPerPackMicros);
+    }
+
+    @JsonProperty("amountPerPack")
+    private void setAmountPerPack(double amountPerPack) {
+        this.amountPerPackMicros = Money.ofEuros(amountPerPack);
+    }
+
+    @JsonIgnore
+    public long getAmountPerPackMicros() {
+        return amountPerPackMicros;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
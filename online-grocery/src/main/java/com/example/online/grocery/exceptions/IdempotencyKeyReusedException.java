@@ -0,0 +1,7 @@
+package com.example.online.grocery.exceptions;
+
+public class IdempotencyKeyReusedException extends RuntimeException{
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.online.grocery.repository;
+
+import com.example.online.grocery.entity.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion,Integer> {
+}
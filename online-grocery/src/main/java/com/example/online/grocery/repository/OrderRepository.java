@@ -1,7 +1,75 @@
 package com.example.online.grocery.repository;
 
 import com.example.online.grocery.entity.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface OrderRepository extends JpaRepository<Order,Integer> {
+
+    /**
+     * Orders placed before {@code to} that come after the cursor in (placedAt, orderId) order.
+     */
+    @Query("""
+            select o.orderId as orderId, o.placedAt as placedAt, o.catalogVersion as catalogVersion, o.totalPriceMicros as totalPriceMicros
+            from Order o
+            where (o.placedAt > :afterPlacedAt or (o.placedAt = :afterPlacedAt and o.orderId > :afterOrderId)) and o.placedAt < :to
+            order by o.placedAt, o.orderId""")
+    List<OrderHeader> findHeadersAfter(Instant afterPlacedAt, int afterOrderId, Instant to, Limit limit);
+
+    @Query("""
+            select o.orderId as orderId, o.placedAt as placedAt, o.catalogVersion as catalogVersion, o.totalPriceMicros as totalPriceMicros,
+                   i.name as name, i.quantity as quantity, i.age as age, i.origin as origin, i.weight as weight,
+                   i.priceMicros as priceMicros, i.discountMicros as discountMicros
+            from OrderItem i join i.order o
+            where o.orderId in :orderIds
+            order by o.orderId, i.orderItemId""")
+    List<OrderLineRow> findLines(Collection<Integer> orderIds);
+
+    /**
+     * Every line of the orders placed in [from, to), in (placedAt, orderId) order, read through a cursor.
+     */
+    @Query("""
+            select o.orderId as orderId, o.placedAt as placedAt, o.catalogVersion as catalogVersion, o.totalPriceMicros as totalPriceMicros,
+                   i.name as name, i.quantity as quantity, i.age as age, i.origin as origin, i.weight as weight,
+                   i.priceMicros as priceMicros, i.discountMicros as discountMicros
+            from OrderItem i join i.order o
+            where o.placedAt >= :from and o.placedAt < :to
+            order by o.placedAt, o.orderId, i.orderItemId""")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<OrderLineRow> streamLines(Instant from, Instant to);
+
+    interface OrderHeader {
+        int getOrderId();
+
+        Instant getPlacedAt();
+
+        long getCatalogVersion();
+
+        long getTotalPriceMicros();
+    }
+
+    interface OrderLineRow extends OrderHeader {
+        String getName();
+
+        int getQuantity();
+
+        Integer getAge();
+
+        String getOrigin();
+
+        double getWeight();
+
+        long getPriceMicros();
+
+        long getDiscountMicros();
+    }
 }
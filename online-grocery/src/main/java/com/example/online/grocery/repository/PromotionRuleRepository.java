@@ -0,0 +1,11 @@
+package com.example.online.grocery.repository;
+
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.PromotionRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+
+public interface PromotionRuleRepository extends JpaRepository<PromotionRule,Integer> {
+    void deleteByProductTypeIn(Collection<Item.ProductType> productTypes);
+}
@@ -0,0 +1,55 @@
+package com.example.online.grocery.repository;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.relational.core.mapping.Table;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * The saved orders read over R2DBC, for the {@code reactive} profile. Same queries as {@link OrderRepository}, read
+ * into records instead of entities.
+ */
+public interface ReactiveOrderRepository extends R2dbcRepository<ReactiveOrderRepository.OrderRow, Integer> {
+
+    /**
+     * Orders placed before {@code to} that come after the cursor in (placedAt, orderId) order.
+     */
+    @Query("""
+            select o.order_id, o.placed_at, o.catalog_version, o.total_price_micros
+            from orders o
+            where (o.placed_at > :afterPlacedAt or (o.placed_at = :afterPlacedAt and o.order_id > :afterOrderId)) and o.placed_at < :to
+            order by o.placed_at, o.order_id
+            limit :limit""")
+    Flux<OrderRow> findHeadersAfter(Instant afterPlacedAt, int afterOrderId, Instant to, int limit);
+
+    @Query("""
+            select o.order_id, o.placed_at, o.catalog_version, o.total_price_micros,
+                   i.name, i.quantity, i.age, i.origin, i.weight, i.price_micros, i.discount_micros
+            from order_item i join orders o on o.order_id = i.order_id
+            where o.order_id in (:orderIds)
+            order by o.order_id, i.order_item_id""")
+    Flux<OrderLineRow> findLines(Collection<Integer> orderIds);
+
+    /**
+     * Every line of the orders placed in [from, to), in (placedAt, orderId) order.
+     */
+    @Query("""
+            select o.order_id, o.placed_at, o.catalog_version, o.total_price_micros,
+                   i.name, i.quantity, i.age, i.origin, i.weight, i.price_micros, i.discount_micros
+            from order_item i join orders o on o.order_id = i.order_id
+            where o.placed_at >= :from and o.placed_at < :to
+            order by o.placed_at, o.order_id, i.order_item_id""")
+    Flux<OrderLineRow> streamLines(Instant from, Instant to);
+
+    @Table("orders")
+    record OrderRow(@Id int orderId, Instant placedAt, long catalogVersion, long totalPriceMicros) {
+    }
+
+    record OrderLineRow(int orderId, Instant placedAt, long catalogVersion, long totalPriceMicros, String name, int quantity,
+                        Integer age, String origin, double weight, long priceMicros, long discountMicros) {
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.PromotionRule;
+import com.example.online.grocery.util.Money;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * One catalog change as it is written to the {@link CatalogEventLog}: the items that were upserted, with the ids the
+ * database gave them, and the promotion rules of the product types that were replaced. A full event replaces the
+ * whole catalog and is what a snapshot file holds.
+ */
+record CatalogEvent(long version, boolean full, List<Item> items, Set<Item.ProductType> ruleTypes, List<PromotionRule> promotionRules) {
+
+    static CatalogEvent full(CatalogSnapshot catalog) {
+        return new CatalogEvent(catalog.getVersion(), true, catalog.getItems(), EnumSet.allOf(Item.ProductType.class),
+                catalog.getPromotionRules());
+    }
+
+    /**
+     * @return the catalog after this change, with this event's version
+     */
+    CatalogSnapshot applyTo(CatalogSnapshot catalog) {
+        List<Item> mergedItems;
+        ItemSearchIndex searchIndex;
+        if (full) {
+            mergedItems = items;
+            searchIndex = ItemSearchIndex.of(items);
+        } else {
+            Map<String, Item> byName = new LinkedHashMap<>();
+            catalog.getItems().forEach(item -> byName.put(item.getName(), item));
+            items.forEach(item -> byName.put(item.getName(), item));
+            mergedItems = new ArrayList<>(byName.values());
+            searchIndex = catalog.getSearchIndex().with(items);
+        }
+        List<PromotionRule> mergedRules = new ArrayList<>(promotionRules);
+        if (!full) {
+            catalog.getPromotionRules().stream().filter(rule -> !ruleTypes.contains(rule.getProductType())).forEach(mergedRules::add);
+        }
+        return new CatalogSnapshot(mergedItems, mergedRules, searchIndex).withVersion(version);
+    }
+
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + items.size() * 64 + promotionRules.size() * 48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(version);
+            out.writeBoolean(full);
+            out.writeInt(items.size());
+            for (Item item : items) {
+                out.writeInt(item.getItemId());
+                out.writeUTF(item.getName());
+                writeNullable(out, item.getType() == null ? null : item.getType().name());
+                out.writeLong(item.getUnitPriceMicros());
+                writeNullable(out, item.getDiscountRule());
+            }
+            out.writeInt(ruleTypes.size());
+            for (Item.ProductType type : ruleTypes) {
+                out.writeUTF(type.name());
+            }
+            out.writeInt(promotionRules.size());
+            for (PromotionRule rule : promotionRules) {
+                out.writeUTF(rule.getProductType().name());
+                out.writeUTF(rule.getKind().name());
+                out.writeBoolean(rule.getUpTo() != null);
+                out.writeDouble(rule.getUpTo() == null ? 0.0 : rule.getUpTo());
+                out.writeInt(rule.getPercentBasisPoints());
+                out.writeInt(rule.getBuy());
+                out.writeInt(rule.getFree());
+                out.writeInt(rule.getPackSize());
+                out.writeLong(rule.getAmountPerPackMicros());
+                writeNullable(out, rule.getMessage());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static CatalogEvent decode(byte[] bytes, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, offset, length));
+        long version = in.readLong();
+        boolean full = in.readBoolean();
+        int itemCount = in.readInt();
+        List<Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            int itemId = in.readInt();
+            String name = in.readUTF();
+            String type = readNullable(in);
+            long unitPriceMicros = in.readLong();
+            Item item = new Item(itemId, name, type == null ? null : Item.ProductType.valueOf(type), 0.0, readNullable(in));
+            item.setUnitPriceMicros(unitPriceMicros);
+            items.add(item);
+        }
+        int typeCount = in.readInt();
+        Set<Item.ProductType> ruleTypes = EnumSet.noneOf(Item.ProductType.class);
+        for (int i = 0; i < typeCount; i++) {
+            ruleTypes.add(Item.ProductType.valueOf(in.readUTF()));
+        }
+        int ruleCount = in.readInt();
+        List<PromotionRule> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            Item.ProductType productType = Item.ProductType.valueOf(in.readUTF());
+            PromotionRule.Kind kind = PromotionRule.Kind.valueOf(in.readUTF());
+            boolean hasUpTo = in.readBoolean();
+            double upTo = in.readDouble();
+            rules.add(new PromotionRule(productType, kind, hasUpTo ? upTo : null, in.readInt(), in.readInt(), in.readInt(),
+                    in.readInt(), Money.toEuros(in.readLong()), readNullable(in)));
+        }
+        return new CatalogEvent(version, full, items, ruleTypes, rules);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.online.grocery.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of catalog changes next to a compact snapshot of the whole catalog, so that a restart gets the
+ * catalog back without the seed data and without reading it through JPA. Every record is framed as
+ * {@code [length][crc32c][payload]} and forced to disk right after the change has committed, so the log never holds a
+ * change the database rolled back; a record torn by a crash fails its checksum and is cut off on the next start. A
+ * crash between the commit and the append leaves the log behind the database: on startup the version the database
+ * holds is compared with the recovered one, and when the log is behind, the catalog is read from the database and
+ * written as a new snapshot instead. Every {@code snapshot-every} changes the catalog is written as a new snapshot
+ * file, which is moved into place atomically, and the log starts over.
+ * <p>
+ * The log is off unless {@code grocery.catalog.log.dir} is set.
+ */
+@Component
+public class CatalogEventLog {
+    static final String SNAPSHOT_FILE = "catalog.snapshot";
+    static final String LOG_FILE = "catalog.log";
+    private static final int HEADER_BYTES = 8;
+    private static final Logger log = LoggerFactory.getLogger(CatalogEventLog.class);
+
+    private final Path directory;
+    private final int snapshotEvery;
+    private FileChannel channel;
+    private int eventsSinceSnapshot;
+
+    @Autowired
+    public CatalogEventLog(@Value("${grocery.catalog.log.dir:}") String directory,
+                           @Value("${grocery.catalog.log.snapshot-every:100}") int snapshotEvery) {
+        this(directory.isBlank() ? null : Path.of(directory), snapshotEvery);
+    }
+
+    CatalogEventLog(Path directory, int snapshotEvery) {
+        if (snapshotEvery <= 0) {
+            throw new IllegalArgumentException("grocery.catalog.log.snapshot-every must be positive.");
+        }
+        this.directory = directory;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Loads the latest snapshot and replays the changes logged after it. A torn record at the end of the log is cut
+     * off, so that new changes are appended after the last complete one.
+     *
+     * @return the recovered catalog with the version it had, or empty when the log is off or has nothing yet
+     */
+    public synchronized Optional<CatalogSnapshot> recover() {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        try {
+            CatalogSnapshot catalog = null;
+            Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+            if (Files.exists(snapshotFile)) {
+                byte[] bytes = Files.readAllBytes(snapshotFile);
+                int length = validRecordLength(bytes, 0);
+                if (length < 0) {
+                    throw new IllegalStateException("Catalog snapshot " + snapshotFile + " is corrupt.");
+                }
+                catalog = CatalogEvent.decode(bytes, HEADER_BYTES, length).applyTo(CatalogSnapshot.EMPTY);
+            }
+
+            FileChannel logChannel = channel();
+            byte[] bytes = new byte[Math.toIntExact(logChannel.size())];
+            logChannel.map(FileChannel.MapMode.READ_ONLY, 0, bytes.length).get(bytes);
+            int position = 0;
+            int replayed = 0;
+            int length;
+            while ((length = validRecordLength(bytes, position)) >= 0) {
+                CatalogEvent event = CatalogEvent.decode(bytes, position + HEADER_BYTES, length);
+                if (catalog == null || event.version() > catalog.getVersion()) {
+                    catalog = event.applyTo(catalog == null ? CatalogSnapshot.EMPTY : catalog);
+                    replayed++;
+                }
+                position += HEADER_BYTES + length;
+            }
+            if (position < bytes.length) {
+                log.warn("Cutting {} bytes of incomplete catalog changes off {}", bytes.length - position, directory.resolve(LOG_FILE));
+                logChannel.truncate(position);
+                logChannel.force(true);
+            }
+            eventsSinceSnapshot = replayed;
+            return Optional.ofNullable(catalog);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends one change and forces it to disk. Does nothing when the log is off.
+     */
+    synchronized void append(CatalogEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            FileChannel logChannel = channel();
+            ByteBuffer record = frame(event);
+            logChannel.position(logChannel.size());
+            while (record.hasRemaining()) {
+                logChannel.write(record);
+            }
+            logChannel.force(false);
+            eventsSinceSnapshot++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return whether enough changes were logged since the last snapshot to write a new one
+     */
+    public synchronized boolean snapshotDue() {
+        return isEnabled() && eventsSinceSnapshot >= snapshotEvery;
+    }
+
+    /**
+     * Writes {@code catalog} as the new snapshot and empties the log. A crash in between leaves changes in the log
+     * that are not newer than the snapshot, which {@link #recover()} skips.
+     */
+    public synchronized void snapshot(CatalogSnapshot catalog) {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            FileChannel logChannel = channel();
+            Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileChannel snapshotChannel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer record = frame(CatalogEvent.full(catalog));
+                while (record.hasRemaining()) {
+                    snapshotChannel.write(record);
+                }
+                snapshotChannel.force(true);
+            }
+            Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            logChannel.truncate(0);
+            logChannel.force(true);
+            eventsSinceSnapshot = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Files.createDirectories(directory);
+            channel = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+        return channel;
+    }
+
+    private static ByteBuffer frame(CatalogEvent event) {
+        byte[] payload = event.encode();
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        return record.flip();
+    }
+
+    /**
+     * @return the payload length of the complete record at {@code position}, or -1 when there is none
+     */
+    private static int validRecordLength(byte[] bytes, int position) {
+        if (bytes.length - position < HEADER_BYTES) {
+            return -1;
+        }
+        ByteBuffer header = ByteBuffer.wrap(bytes, position, HEADER_BYTES);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length < 0 || length > bytes.length - position - HEADER_BYTES) {
+            return -1;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, position + HEADER_BYTES, length);
+        return (int) crc.getValue() == checksum ? length : -1;
+    }
+}
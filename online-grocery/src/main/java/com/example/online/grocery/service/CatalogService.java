@@ -0,0 +1,192 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.discount.DiscountRuleCompiler;
+import com.example.online.grocery.dto.CatalogUpdate;
+import com.example.online.grocery.dto.CatalogView;
+import com.example.online.grocery.entity.CatalogVersion;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.PromotionRule;
+import com.example.online.grocery.repository.CatalogVersionRepository;
+import com.example.online.grocery.repository.ItemRepository;
+import com.example.online.grocery.repository.PromotionRuleRepository;
+import com.example.online.grocery.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Catalog changes. Writers are serialized so that every change is saved and published as its own snapshot, in order.
+ * Pricing never waits for them: it keeps using the snapshot it started with until the new one is swapped in. Each
+ * change is appended to the {@link CatalogEventLog} once its transaction has committed, so the log never holds a change
+ * the database does not. The transaction also stores the new version as the {@link CatalogVersion}, which a restart
+ * uses to find out whether the log fell behind the database.
+ */
+@Service
+public class CatalogService {
+    private static final Logger log = LoggerFactory.getLogger(CatalogService.class);
+
+    private final ItemRepository itemRepository;
+    private final PromotionRuleRepository promotionRuleRepository;
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final ItemCatalog itemCatalog;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogEventLog catalogEventLog;
+    private static final int MAX_SEARCH_RESULTS = 50;
+
+    private final ReentrantLock updates = new ReentrantLock();
+
+    public CatalogService(ItemRepository itemRepository, PromotionRuleRepository promotionRuleRepository,
+                          CatalogVersionRepository catalogVersionRepository, ItemCatalog itemCatalog,
+                          TransactionTemplate transactionTemplate, CatalogEventLog catalogEventLog) {
+        this.itemRepository = itemRepository;
+        this.promotionRuleRepository = promotionRuleRepository;
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.itemCatalog = itemCatalog;
+        this.transactionTemplate = transactionTemplate;
+        this.catalogEventLog = catalogEventLog;
+    }
+
+    public List<PromotionRule> getPromotionRules() {
+        return itemCatalog.snapshot().getPromotionRules();
+    }
+
+    public CatalogView getCatalog() {
+        return view(itemCatalog.snapshot());
+    }
+
+    /**
+     * Up to {@code limit} items of the current catalog whose name, a word of it or its product type starts with
+     * {@code query}, ignoring case. Served from the snapshot's {@link ItemSearchIndex}, never from the database.
+     */
+    public List<Item> searchItems(String query, int limit) throws IllegalArgumentException {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search needs a query.");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new IllegalArgumentException("Search limit must be between 1 and " + MAX_SEARCH_RESULTS + ".");
+        }
+        return itemCatalog.snapshot().getSearchIndex().search(query, limit);
+    }
+
+    /**
+     * Replaces the promotion rules of every product type present in {@code rules} and publishes a new catalog
+     * snapshot. The rules are compiled before anything is saved, so invalid rules never reach the database.
+     */
+    public List<PromotionRule> replacePromotionRules(List<PromotionRule> rules) throws IllegalArgumentException {
+        return updateCatalog(new CatalogUpdate(List.of(), rules)).promotionRules();
+    }
+
+    /**
+     * Upserts items by name and replaces the promotion rules of the product types in {@code update}, then publishes
+     * the result as one new catalog version. The whole update is validated before anything is saved.
+     */
+    public CatalogView updateCatalog(CatalogUpdate update) throws IllegalArgumentException {
+        List<CatalogUpdate.ItemUpdate> itemUpdates = update.items() == null ? List.of() : update.items();
+        List<PromotionRule> rules = update.promotionRules() == null ? List.of() : update.promotionRules();
+        validateItems(itemUpdates);
+        DiscountRuleCompiler.compile(rules);
+        Set<Item.ProductType> productTypes = EnumSet.noneOf(Item.ProductType.class);
+        rules.forEach(rule -> productTypes.add(rule.getProductType()));
+
+        updates.lock();
+        try {
+            CatalogSnapshot current = itemCatalog.snapshot();
+            for (CatalogUpdate.ItemUpdate itemUpdate : itemUpdates) {
+                if (itemUpdate.type() == null && current.findByName(itemUpdate.name()).isEmpty()) {
+                    throw new IllegalArgumentException("New item " + itemUpdate.name() + " needs a type.");
+                }
+            }
+            List<PromotionRule> mergedRules = new ArrayList<>(rules);
+            current.getPromotionRules().stream().filter(rule -> !productTypes.contains(rule.getProductType())).forEach(mergedRules::add);
+            DiscountRuleCompiler.compile(mergedRules);
+
+            CatalogEvent event = transactionTemplate.execute(status -> {
+                List<Item> items = itemUpdates.isEmpty() ? List.of() : itemRepository.saveAll(upsert(itemUpdates));
+                if (!rules.isEmpty()) {
+                    promotionRuleRepository.deleteByProductTypeIn(productTypes);
+                    promotionRuleRepository.saveAll(rules);
+                }
+                catalogVersionRepository.save(new CatalogVersion(current.getVersion() + 1));
+                itemRepository.flush();
+                return new CatalogEvent(current.getVersion() + 1, false, items, productTypes, rules);
+            });
+            CatalogSnapshot published = itemCatalog.install(event.applyTo(current));
+            log(event, published);
+            return view(published);
+        } finally {
+            updates.unlock();
+        }
+    }
+
+    /**
+     * Appends a committed change to the event log. When that fails the change is already in the database and
+     * published, so the whole catalog is written as a snapshot instead, which brings the log up to date as well.
+     */
+    private void log(CatalogEvent event, CatalogSnapshot published) {
+        boolean appended = false;
+        try {
+            catalogEventLog.append(event);
+            appended = true;
+            if (catalogEventLog.snapshotDue()) {
+                catalogEventLog.snapshot(published);
+            }
+        } catch (UncheckedIOException e) {
+            if (appended) {
+                log.warn("Could not write catalog snapshot, the changes stay in the event log", e);
+                return;
+            }
+            log.warn("Could not append catalog version {} to the event log, writing a snapshot instead", event.version(), e);
+            try {
+                catalogEventLog.snapshot(published);
+            } catch (UncheckedIOException snapshotFailure) {
+                log.error("Could not log catalog version {}, a restart recovers the catalog before it", event.version(), snapshotFailure);
+            }
+        }
+    }
+
+    private List<Item> upsert(List<CatalogUpdate.ItemUpdate> itemUpdates) {
+        Map<String, Item> itemsByName = new HashMap<>();
+        itemRepository.findAll().forEach(item -> itemsByName.put(item.getName(), item));
+        List<Item> changed = new ArrayList<>(itemUpdates.size());
+        for (CatalogUpdate.ItemUpdate itemUpdate : itemUpdates) {
+            Item item = itemsByName.get(itemUpdate.name());
+            if (item == null) {
+                item = new Item(itemUpdate.name(), itemUpdate.type(), itemUpdate.unitPrice(), itemUpdate.discountRule());
+            } else {
+                item.setUnitPriceMicros(Money.ofEuros(itemUpdate.unitPrice()));
+                if (itemUpdate.type() != null) {
+                    item.setType(itemUpdate.type());
+                }
+                if (itemUpdate.discountRule() != null) {
+                    item.setDiscountRule(itemUpdate.discountRule());
+                }
+            }
+            changed.add(item);
+        }
+        return changed;
+    }
+
+    private static void validateItems(List<CatalogUpdate.ItemUpdate> itemUpdates) {
+        Set<String> names = new HashSet<>();
+        for (CatalogUpdate.ItemUpdate itemUpdate : itemUpdates) {
+            if (itemUpdate.name() == null || itemUpdate.name().isBlank()) {
+                throw new IllegalArgumentException("Every item needs a name.");
+            }
+            if (!names.add(itemUpdate.name())) {
+                throw new IllegalArgumentException("Item " + itemUpdate.name() + " is listed more than once.");
+            }
+            if (!Double.isFinite(itemUpdate.unitPrice()) || itemUpdate.unitPrice() < 0) {
+                throw new IllegalArgumentException("Unit price of " + itemUpdate.name() + " must be zero or more.");
+            }
+        }
+    }
+
+    private static CatalogView view(CatalogSnapshot catalog) {
+        return new CatalogView(catalog.getVersion(), catalog.getItems(), catalog.getPromotionRules());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.discount.DiscountEvaluator;
+import com.example.online.grocery.discount.DiscountRuleCompiler;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.PromotionRule;
+
+import java.util.*;
+
+public final class CatalogSnapshot {
+    public static final CatalogSnapshot EMPTY = new CatalogSnapshot(Collections.emptyList(), Collections.emptyList());
+
+    private final List<Item> items;
+    private final Map<String, Item> itemsByName;
+    private final Map<Integer, Item> itemsById;
+    private final Map<String, Double> pricesPerItem;
+    private final List<String> discountRules;
+    private final List<PromotionRule> promotionRules;
+    private final DiscountEvaluator[] discountEvaluators;
+    private final ItemSearchIndex searchIndex;
+    private final long version;
+
+    public CatalogSnapshot(List<Item> items, List<PromotionRule> promotionRules) {
+        this(items, promotionRules, ItemSearchIndex.of(items));
+    }
+
+    /**
+     * A snapshot of {@code items} that reuses a search index already brought up to date with them.
+     */
+    CatalogSnapshot(List<Item> items, List<PromotionRule> promotionRules, ItemSearchIndex searchIndex) {
+        Map<String, Item> byName = new HashMap<>();
+        Map<Integer, Item> byId = new HashMap<>();
+        Map<String, Double> prices = new HashMap<>();
+        List<String> rules = new ArrayList<>();
+        for (Item item : items) {
+            byName.put(item.getName(), item);
+            byId.put(item.getItemId(), item);
+            prices.put(item.getName(), item.getUnitPrice());
+            rules.add(item.getDiscountRule());
+        }
+        this.items = List.copyOf(items);
+        this.itemsByName = Collections.unmodifiableMap(byName);
+        this.itemsById = Collections.unmodifiableMap(byId);
+        this.pricesPerItem = Collections.unmodifiableMap(prices);
+        this.discountRules = Collections.unmodifiableList(rules);
+        this.promotionRules = List.copyOf(promotionRules);
+        this.discountEvaluators = DiscountRuleCompiler.compile(promotionRules);
+        this.searchIndex = searchIndex;
+        this.version = 0L;
+    }
+
+    private CatalogSnapshot(CatalogSnapshot catalog, long version) {
+        this.items = catalog.items;
+        this.itemsByName = catalog.itemsByName;
+        this.itemsById = catalog.itemsById;
+        this.pricesPerItem = catalog.pricesPerItem;
+        this.discountRules = catalog.discountRules;
+        this.promotionRules = catalog.promotionRules;
+        this.discountEvaluators = catalog.discountEvaluators;
+        this.searchIndex = catalog.searchIndex;
+        this.version = version;
+    }
+
+    CatalogSnapshot withVersion(long version) {
+        return new CatalogSnapshot(this, version);
+    }
+
+    public Optional<Item> findByName(String name) {
+        return Optional.ofNullable(itemsByName.get(name));
+    }
+
+    /**
+     * The item with that name, or {@code null}. Used when pricing lines, where no {@link Optional} should be created.
+     */
+    Item itemNamed(String name) {
+        return itemsByName.get(name);
+    }
+
+    public Optional<Item> findById(int itemId) {
+        return Optional.ofNullable(itemsById.get(itemId));
+    }
+
+    public DiscountEvaluator discountEvaluator(Item.ProductType type) {
+        return discountEvaluators[type.ordinal()];
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public Map<String, Double> getPricesPerItem() {
+        return pricesPerItem;
+    }
+
+    public List<String> getDiscountRules() {
+        return discountRules;
+    }
+
+    public List<PromotionRule> getPromotionRules() {
+        return promotionRules;
+    }
+
+    public ItemSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * Increases with every snapshot published by {@link ItemCatalog}, 0 for a snapshot that was never published.
+     */
+    public long getVersion() {
+        return version;
+    }
+}
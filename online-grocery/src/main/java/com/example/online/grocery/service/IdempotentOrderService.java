@@ -0,0 +1,96 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.dto.Receipt;
+import com.example.online.grocery.exceptions.IdempotencyKeyReusedException;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Prices an order at most once per {@code Idempotency-Key}. The first request for a key prices the order on its own
+ * thread, while retries arriving before it finishes wait on the same future instead of pricing again. Receipts are
+ * kept with their order in a bounded cache and expire after {@code grocery.idempotency.ttl}. A failed order is not
+ * cached, so its retry is priced again. A key reused with an order that is not equal to the first one is rejected.
+ * {@link #priceOrder} is the non-blocking variant for callers that must not wait, which prices on a given executor and
+ * completes when the receipt is known.
+ */
+@Service
+public class IdempotentOrderService {
+
+    private final OrderService orderService;
+    private final AsyncCache<String, IdempotentReceipt> receipts;
+
+    public IdempotentOrderService(OrderService orderService, MeterRegistry meterRegistry,
+                                  @Value("${grocery.idempotency.maximum-size:100000}") long maximumSize,
+                                  @Value("${grocery.idempotency.ttl:1h}") Duration ttl) {
+        this.orderService = orderService;
+        this.receipts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, receipts, "idempotency");
+    }
+
+    public Receipt processOrder(String idempotencyKey, OrderRequest order) {
+        CompletableFuture<IdempotentReceipt> pricing = new CompletableFuture<>();
+        CompletableFuture<IdempotentReceipt> cached = receipts.get(idempotencyKey, (key, executor) -> pricing);
+        if (cached == pricing) {
+            try {
+                pricing.complete(new IdempotentReceipt(order, orderService.priceOrder(order)));
+            } catch (Throwable ex) {
+                // an Error too, or the retries waiting on this future would wait forever
+                pricing.completeExceptionally(ex);
+                throw ex;
+            }
+        }
+        return receiptFor(join(cached), order);
+    }
+
+    /**
+     * Like {@link #processOrder}, but the first request for a key prices the order on {@code executor}, and no thread
+     * waits for a retry to be answered.
+     */
+    public CompletableFuture<Receipt> priceOrder(String idempotencyKey, OrderRequest order, Executor executor) {
+        return receipts.get(idempotencyKey, (key, cacheExecutor) -> CompletableFuture.supplyAsync(
+                        () -> new IdempotentReceipt(order, orderService.priceOrder(order)), executor))
+                .thenApply(receipt -> receiptFor(receipt, order));
+    }
+
+    private static Receipt receiptFor(IdempotentReceipt receipt, OrderRequest order) {
+        if (!Objects.equals(receipt.order(), order)) {
+            throw new IdempotencyKeyReusedException("Idempotency-Key was already used for a different order.");
+        }
+        return receipt.receipt();
+    }
+
+    private static IdempotentReceipt join(CompletableFuture<IdempotentReceipt> receipt) {
+        try {
+            return receipt.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * The receipt with the order it was priced for, which a retry must equal line for line.
+     */
+    private record IdempotentReceipt(OrderRequest order, Receipt receipt) {
+    }
+}
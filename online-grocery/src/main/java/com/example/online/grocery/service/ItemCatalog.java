@@ -0,0 +1,48 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.repository.ItemRepository;
+import com.example.online.grocery.repository.PromotionRuleRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+public class ItemCatalog {
+
+    private final ItemRepository itemRepository;
+    private final PromotionRuleRepository promotionRuleRepository;
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>(CatalogSnapshot.EMPTY);
+
+    public ItemCatalog(ItemRepository itemRepository, PromotionRuleRepository promotionRuleRepository) {
+        this.itemRepository = itemRepository;
+        this.promotionRuleRepository = promotionRuleRepository;
+    }
+
+    public CatalogSnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    public CatalogSnapshot reload() {
+        return publish(new CatalogSnapshot(itemRepository.findAll(), promotionRuleRepository.findAll()));
+    }
+
+    /**
+     * Reads the catalog from the database and publishes it as {@code version}, to carry on with the version recovered
+     * from the {@link CatalogEventLog}.
+     */
+    public CatalogSnapshot reload(long version) {
+        return install(new CatalogSnapshot(itemRepository.findAll(), promotionRuleRepository.findAll()).withVersion(version));
+    }
+
+    public CatalogSnapshot publish(CatalogSnapshot catalog) {
+        return snapshot.updateAndGet(current -> catalog.withVersion(current.getVersion() + 1));
+    }
+
+    /**
+     * Publishes a snapshot that already carries its version, such as one replayed from the {@link CatalogEventLog}.
+     */
+    public CatalogSnapshot install(CatalogSnapshot catalog) {
+        snapshot.set(catalog);
+        return catalog;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.entity.Item;
+
+import java.util.*;
+
+/**
+ * Prefix index over the items of a catalog snapshot, kept in sorted arrays of lower case keys. Matches are ranked in
+ * tiers: items whose name starts with the query, then items with a later word of the name that does, then items whose
+ * product type does, such as "beer" for every beer. Within a tier matches are in key order. A query is a binary search
+ * per tier and a scan of the matching keys that stops at {@code limit} items. Keys of an item that was already
+ * returned are skipped, so the scan also passes over at most the other keys of the items returned, a few per item,
+ * and it does not depend on the size of the catalog.
+ * <p>
+ * The index is immutable. A catalog change derives the next index with {@link #with(Collection)}, which merges the
+ * keys of the changed items into the sorted arrays instead of sorting the whole catalog again.
+ */
+public final class ItemSearchIndex {
+    static final ItemSearchIndex EMPTY = new ItemSearchIndex(new Tier[]{Tier.EMPTY, Tier.EMPTY, Tier.EMPTY});
+
+    private static final int NAMES = 0;
+    private static final int WORDS = 1;
+    private static final int TYPES = 2;
+
+    private final Tier[] tiers;
+
+    private ItemSearchIndex(Tier[] tiers) {
+        this.tiers = tiers;
+    }
+
+    static ItemSearchIndex of(Collection<Item> items) {
+        return EMPTY.with(items);
+    }
+
+    /**
+     * The index with {@code changed} added, replacing the items of the same name.
+     */
+    ItemSearchIndex with(Collection<Item> changed) {
+        if (changed.isEmpty()) {
+            return this;
+        }
+        Set<String> names = new HashSet<>();
+        List<List<Entry>> added = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        for (Item item : changed) {
+            names.add(item.getName());
+            addKeys(item, added);
+        }
+        Tier[] merged = new Tier[tiers.length];
+        for (int tier = 0; tier < tiers.length; tier++) {
+            List<Entry> entries = added.get(tier);
+            entries.sort(Comparator.comparing(Entry::key));
+            merged[tier] = tiers[tier].merge(names, entries);
+        }
+        return new ItemSearchIndex(merged);
+    }
+
+    /**
+     * Up to {@code limit} items matching {@code query}, ignoring case, best matches first.
+     */
+    public List<Item> search(String query, int limit) {
+        String prefix = normalize(query);
+        List<Item> matches = new ArrayList<>(Math.min(limit, 16));
+        if (prefix.isEmpty()) {
+            return matches;
+        }
+        Set<Item> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int tier = 0; tier < tiers.length && matches.size() < limit; tier++) {
+            tiers[tier].collect(prefix, matches, found, limit);
+        }
+        return matches;
+    }
+
+    private static void addKeys(Item item, List<List<Entry>> keys) {
+        String name = normalize(item.getName());
+        if (name.isEmpty()) {
+            return;
+        }
+        keys.get(NAMES).add(new Entry(name, item));
+        String[] words = name.split(" ");
+        for (int i = 1; i < words.length; i++) {
+            if (!words[i].isEmpty()) {
+                keys.get(WORDS).add(new Entry(words[i], item));
+            }
+        }
+        if (item.getType() != null) {
+            for (String word : normalize(item.getType().productName()).split(" ")) {
+                keys.get(TYPES).add(new Entry(word, item));
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(String key, Item item) {
+    }
+
+    private static final class Tier {
+        static final Tier EMPTY = new Tier(new String[0], new Item[0]);
+
+        private final String[] keys;
+        private final Item[] items;
+
+        Tier(String[] keys, Item[] items) {
+            this.keys = keys;
+            this.items = items;
+        }
+
+        /**
+         * This tier without the keys of the items named in {@code replaced}, merged with {@code added}, which is
+         * sorted by key.
+         */
+        Tier merge(Set<String> replaced, List<Entry> added) {
+            String[] mergedKeys = new String[keys.length + added.size()];
+            Item[] mergedItems = new Item[mergedKeys.length];
+            int size = 0;
+            int next = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (replaced.contains(items[i].getName())) {
+                    continue;
+                }
+                while (next < added.size() && added.get(next).key().compareTo(keys[i]) < 0) {
+                    mergedKeys[size] = added.get(next).key();
+                    mergedItems[size++] = added.get(next++).item();
+                }
+                mergedKeys[size] = keys[i];
+                mergedItems[size++] = items[i];
+            }
+            while (next < added.size()) {
+                mergedKeys[size] = added.get(next).key();
+                mergedItems[size++] = added.get(next++).item();
+            }
+            return new Tier(Arrays.copyOf(mergedKeys, size), Arrays.copyOf(mergedItems, size));
+        }
+
+        void collect(String prefix, List<Item> matches, Set<Item> found, int limit) {
+            int from = Arrays.binarySearch(keys, prefix);
+            if (from < 0) {
+                from = -from - 1;
+            } else {
+                while (from > 0 && keys[from - 1].equals(prefix)) {
+                    from--;
+                }
+            }
+            for (int i = from; i < keys.length && matches.size() < limit && keys[i].startsWith(prefix); i++) {
+                if (found.add(items[i])) {
+                    matches.add(items[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.exceptions.ItemNotFoundException;
+import com.example.online.grocery.util.Money;
+
+import java.util.Arrays;
+
+/**
+ * Running totals of priced lines: the order total and, per product type, the discount given and the time spent on
+ * it. All amounts are whole micro-euros, so totals of separately priced parts add up to exactly the total of
+ * pricing the lines one after another.
+ */
+final class LineTotals {
+    private static final int PRODUCT_TYPE_COUNT = Item.ProductType.values().length;
+
+    long totalPriceMicros;
+    long lookupNanos;
+    int typesSeen;
+    final long[] discountNanos = new long[PRODUCT_TYPE_COUNT];
+    final long[] discountMicrosByType = new long[PRODUCT_TYPE_COUNT];
+
+    /**
+     * Looks line {@code index} of the order up, sets its item, price and discount, and adds it to the totals. Bread
+     * must have an age, whichever promotion rules it has.
+     *
+     * @param started {@link System#nanoTime()} when the previous line was finished
+     * @return {@link System#nanoTime()} when this line was finished
+     */
+    long price(PricedOrder order, int index, CatalogSnapshot catalog, long started) {
+        OrderRequest.Line line = order.getLines().get(index);
+        Item validItem = catalog.itemNamed(line.name());
+        if (validItem == null) {
+            throw new ItemNotFoundException("Item added is not valid.");
+        }
+        if (line.age() == null && validItem.getType() == Item.ProductType.BREAD) {
+            throw new IllegalArgumentException("The age in days must be given for " + line.name() + ".");
+        }
+        long priceMicros = validItem.getUnitPriceMicros();
+
+        if (validItem.getType() == Item.ProductType.VEGETABLE)
+            totalPriceMicros += Money.perHundredGrams(priceMicros, Money.milligrams(line.weight()));
+        else
+            totalPriceMicros += Money.times(priceMicros, line.quantity());
+        long looked = System.nanoTime();
+        lookupNanos += looked - started;
+
+        int type = validItem.getType().ordinal();
+        Item.ProductType discountType = discountType(validItem.getType(), line);
+        long discountMicros = discountType == null ? 0L : catalog.discountEvaluator(discountType).discount(line, priceMicros);
+        order.price(index, validItem, priceMicros, discountMicros);
+        totalPriceMicros -= discountMicros;
+        long finished = System.nanoTime();
+        typesSeen |= 1 << type;
+        discountNanos[type] += finished - looked;
+        discountMicrosByType[type] += discountMicros;
+        return finished;
+    }
+
+    /**
+     * The product type whose promotion rules apply to the line. Beer is sold by origin, so a beer line gets the rules
+     * of the beer of the origin it was ordered with, whichever beer it names, and none for an origin that is not sold.
+     */
+    private static Item.ProductType discountType(Item.ProductType type, OrderRequest.Line line) {
+        if (type.origin() == null) {
+            return type;
+        }
+        return Item.ProductType.ofOrigin(Item.Origin.of(line.origin()));
+    }
+
+    /**
+     * Clears the totals, so that the same instance can price the next order.
+     */
+    void reset() {
+        totalPriceMicros = 0L;
+        lookupNanos = 0L;
+        typesSeen = 0;
+        Arrays.fill(discountNanos, 0L);
+        Arrays.fill(discountMicrosByType, 0L);
+    }
+
+    void add(LineTotals other) {
+        totalPriceMicros += other.totalPriceMicros;
+        lookupNanos += other.lookupNanos;
+        typesSeen |= other.typesSeen;
+        for (int type = 0; type < PRODUCT_TYPE_COUNT; type++) {
+            discountNanos[type] += other.discountNanos[type];
+            discountMicrosByType[type] += other.discountMicrosByType[type];
+        }
+    }
+}
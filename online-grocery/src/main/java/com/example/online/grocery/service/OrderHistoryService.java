@@ -0,0 +1,148 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderLine;
+import com.example.online.grocery.dto.OrderPage;
+import com.example.online.grocery.dto.OrderSummary;
+import com.example.online.grocery.repository.OrderRepository;
+import com.example.online.grocery.util.Money;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Reads saved orders back as projections, never as entities. Pages seek past the last (placedAt, orderId) they
+ * returned instead of skipping rows, and fetch the lines of all their orders in one query. Exports read a cursor over
+ * the joined order lines and write each order as soon as its last line has been read.
+ */
+@Service
+public class OrderHistoryService {
+    public static final int MAX_PAGE_SIZE = 500;
+    static final Instant BEGINNING = Instant.EPOCH;
+    static final Instant END = Instant.parse("9999-12-31T23:59:59Z");
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JsonFactory jsonFactory;
+    private final ObjectWriter orderWriter;
+
+    public OrderHistoryService(OrderRepository orderRepository, PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.orderRepository = orderRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jsonFactory = objectMapper.getFactory();
+        this.orderWriter = objectMapper.writerFor(OrderSummary.class);
+    }
+
+    /**
+     * @param from first placement time to include, or null for the beginning
+     * @param to   placement time to stop before, or null for no end
+     * @param afterPlacedAt together with {@code afterOrderId} the {@link OrderPage#next()} cursor of the previous page,
+     *                      or null for the first page
+     */
+    public OrderPage findOrders(Instant from, Instant to, Instant afterPlacedAt, Integer afterOrderId, int limit) throws IllegalArgumentException {
+        PageRequest page = PageRequest.of(from, to, afterPlacedAt, afterOrderId, limit);
+        List<OrderRepository.OrderHeader> headers = orderRepository.findHeadersAfter(page.afterPlacedAt(), page.afterOrderId(), page.to(), Limit.of(limit + 1));
+        boolean more = headers.size() > limit;
+        if (more) {
+            headers = headers.subList(0, limit);
+        }
+        Map<Integer, List<OrderLine>> linesByOrder = new HashMap<>();
+        if (!headers.isEmpty()) {
+            List<Integer> orderIds = headers.stream().map(OrderRepository.OrderHeader::getOrderId).toList();
+            for (OrderRepository.OrderLineRow row : orderRepository.findLines(orderIds)) {
+                linesByOrder.computeIfAbsent(row.getOrderId(), orderId -> new ArrayList<>()).add(line(row));
+            }
+        }
+        List<OrderSummary> orders = new ArrayList<>(headers.size());
+        for (OrderRepository.OrderHeader header : headers) {
+            orders.add(summary(header, linesByOrder.getOrDefault(header.getOrderId(), List.of())));
+        }
+        OrderRepository.OrderHeader last = headers.isEmpty() ? null : headers.get(headers.size() - 1);
+        return new OrderPage(orders, more ? new OrderPage.Cursor(last.getPlacedAt(), last.getOrderId()) : null);
+    }
+
+    /**
+     * Writes every order placed in [from, to) to {@code out} as one JSON object per line.
+     */
+    public void exportOrders(Instant from, Instant to, OutputStream out) throws IOException {
+        Instant start = from == null ? BEGINNING : from;
+        Instant end = to == null ? END : to;
+        JsonGenerator generator = jsonFactory.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<OrderRepository.OrderLineRow> rows = orderRepository.streamLines(start, end)) {
+                    OrderRepository.OrderLineRow header = null;
+                    List<OrderLine> lines = new ArrayList<>();
+                    for (Iterator<OrderRepository.OrderLineRow> iterator = rows.iterator(); iterator.hasNext(); ) {
+                        OrderRepository.OrderLineRow row = iterator.next();
+                        if (header != null && header.getOrderId() != row.getOrderId()) {
+                            write(generator, summary(header, lines));
+                            lines = new ArrayList<>();
+                        }
+                        header = row;
+                        lines.add(line(row));
+                    }
+                    if (header != null) {
+                        write(generator, summary(header, lines));
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.flush();
+    }
+
+    private void write(JsonGenerator generator, OrderSummary order) {
+        try {
+            orderWriter.writeValue(generator, order);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static OrderSummary summary(OrderRepository.OrderHeader header, List<OrderLine> lines) {
+        return new OrderSummary(header.getOrderId(), header.getPlacedAt(), header.getCatalogVersion(),
+                Money.toEuros(header.getTotalPriceMicros()), lines);
+    }
+
+    private static OrderLine line(OrderRepository.OrderLineRow row) {
+        return new OrderLine(row.getName(), row.getQuantity(), row.getAge(), row.getOrigin(), row.getWeight(),
+                Money.toEuros(row.getPriceMicros()), Money.toEuros(row.getDiscountMicros()));
+    }
+
+    /**
+     * A validated page request: the page holds the orders placed before {@code to} that come after
+     * ({@code afterPlacedAt}, {@code afterOrderId}).
+     */
+    record PageRequest(Instant afterPlacedAt, int afterOrderId, Instant to, int limit) {
+
+        static PageRequest of(Instant from, Instant to, Instant afterPlacedAt, Integer afterOrderId, int limit) throws IllegalArgumentException {
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+            }
+            if ((afterPlacedAt == null) != (afterOrderId == null)) {
+                throw new IllegalArgumentException("afterPlacedAt and afterOrderId must be given together.");
+            }
+            Instant start = from == null ? BEGINNING : from;
+            if (afterPlacedAt == null || afterPlacedAt.isBefore(start)) {
+                return new PageRequest(start, Integer.MIN_VALUE, to == null ? END : to, limit);
+            }
+            return new PageRequest(afterPlacedAt, afterOrderId, to == null ? END : to, limit);
+        }
+    }
+}
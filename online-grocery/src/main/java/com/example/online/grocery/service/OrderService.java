@@ -1,166 +1,281 @@
 package com.example.online.grocery.service;
 
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.dto.OrderResult;
+import com.example.online.grocery.dto.Receipt;
 import com.example.online.grocery.entity.Item;
 import com.example.online.grocery.entity.Order;
 import com.example.online.grocery.entity.OrderItem;
 import com.example.online.grocery.exceptions.ItemNotFoundException;
 import com.example.online.grocery.exceptions.NotValidOrderException;
-import com.example.online.grocery.repository.ItemRepository;
+import com.example.online.grocery.util.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 @Service
 public class OrderService {
+    private static final Logger log = LoggerFactory.getLogger(OrderService.class);
 
-    private final ItemRepository itemRepository;
+    static final String UNEXPECTED_ERROR = "The order could not be priced.";
 
-    public OrderService(ItemRepository itemRepository) {
-        this.itemRepository = itemRepository;
+    private static final Item.Origin[] ORIGINS = Item.Origin.values();
+    private static final ReceiptLine ITEM_LINE = OrderService::appendItemLine;
+    private static final ReceiptLine[] RECEIPT_LINES = receiptLines();
+
+    private final ItemCatalog itemCatalog;
+    private final PricedOrderSink pricedOrderSink;
+    private final PricingMetrics pricingMetrics;
+    private final ReceiptMemo receiptMemo;
+    private final SalesAggregates salesAggregates;
+    private final ParallelLinePricer parallelLinePricer;
+
+    public OrderService(ItemCatalog itemCatalog) {
+        this(itemCatalog, PricedOrderSink.NONE, PricingMetrics.NONE, ReceiptMemo.NONE, SalesAggregates.NONE, ParallelLinePricer.NONE);
+    }
+
+    @Autowired
+    public OrderService(ItemCatalog itemCatalog, PricedOrderSink pricedOrderSink, PricingMetrics pricingMetrics, ReceiptMemo receiptMemo,
+                        SalesAggregates salesAggregates, ParallelLinePricer parallelLinePricer) {
+        this.itemCatalog = itemCatalog;
+        this.pricedOrderSink = pricedOrderSink;
+        this.pricingMetrics = pricingMetrics;
+        this.receiptMemo = receiptMemo;
+        this.salesAggregates = salesAggregates;
+        this.parallelLinePricer = parallelLinePricer;
     }
 
+    /**
+     * Prices an order built in code rather than posted. Its lines are read as they are and the order is not changed.
+     */
     public String processOrder(Order order) throws ItemNotFoundException, NotValidOrderException, IllegalArgumentException {
-        double totalPrice = 0.0;
-        double discount;
-        if (order.getOrderItems().isEmpty()) {
+        return priceOrder(toRequest(order)).text();
+    }
+
+    public Receipt priceOrder(OrderRequest order) throws ItemNotFoundException, NotValidOrderException, IllegalArgumentException {
+        return processOrder(order, itemCatalog.snapshot());
+    }
+
+    public List<OrderResult> processOrders(List<OrderRequest> orders) {
+        CatalogSnapshot catalog = itemCatalog.snapshot();
+        return IntStream.range(0, orders.size())
+                .parallel()
+                .mapToObj(index -> processOrderInBatch(index, orders.get(index), catalog))
+                .toList();
+    }
+
+    public OrderResult processOrderInBatch(int index, OrderRequest order, CatalogSnapshot catalog) {
+        try {
+            return OrderResult.receipt(index, processOrder(order, catalog));
+        } catch (ItemNotFoundException | NotValidOrderException | IllegalArgumentException ex) {
+            return OrderResult.error(index, ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.error("Could not price order {} of a batch", index, ex);
+            return OrderResult.error(index, UNEXPECTED_ERROR);
+        }
+    }
+
+    private Receipt processOrder(OrderRequest order, CatalogSnapshot catalog) {
+        try {
+            return new Receipt(priceAndRenderReceipt(order, catalog), catalog.getVersion());
+        } catch (RuntimeException ex) {
+            pricingMetrics.recordRejected(ex);
+            throw ex;
+        }
+    }
+
+    private String priceAndRenderReceipt(OrderRequest order, CatalogSnapshot catalog) {
+        if (order == null || order.orderItems() == null || order.orderItems().isEmpty()) {
             throw new NotValidOrderException("No items found in the order hence it is not valid.");
         }
-        Order modifiedOrder = updateOrderCombineSameItemsToGetDiscount(order);
-        for (OrderItem orderItem : modifiedOrder.getOrderItems()) {
-            Optional<Item> item = itemRepository.findByName(orderItem.getName());
-            Item validItem = item.orElseThrow(() -> new ItemNotFoundException("Item added is not valid."));
-            orderItem.setPrice(validItem.getUnitPrice());
-
-            if (validItem.getType() == Item.ProductType.VEGETABLE)
-                totalPrice += orderItem.getPrice() * (orderItem.getWeight() / 100);
-            else
-                totalPrice += orderItem.getPrice() * orderItem.getQuantity();
-            switch (validItem.getType()) {
-                case BREAD -> discount = calculateBreadDiscount(orderItem);
-                case VEGETABLE -> discount = calculateDiscountForVegetable(orderItem);
-                case DUTCH_BEER, GERMAN_BEER, BELGIUM_BEER -> discount = calculateDiscountForBeer(orderItem);
-                default -> discount = 0.0;
+        long started = System.nanoTime();
+        PricedOrder pricedOrder;
+        String receipt;
+        PricingContext context = PricingContext.acquire();
+        try {
+            List<OrderRequest.Line> lines = combineSameItems(order.orderItems(), context.beersByOrigin());
+            pricedOrder = new PricedOrder(lines, catalog.getVersion(), context.now());
+            long stageStarted = System.nanoTime();
+            pricingMetrics.recordConsolidation(order.orderItems().size(), lines.size(), stageStarted - started);
+            receipt = priceLines(pricedOrder, catalog, context, started, stageStarted);
+        } finally {
+            context.release();
+        }
+        salesAggregates.record(pricedOrder);
+        pricedOrderSink.accept(pricedOrder);
+        return receipt;
+    }
+
+    private String priceLines(PricedOrder pricedOrder, CatalogSnapshot catalog, PricingContext context, long started, long stageStarted) {
+        ReceiptMemo.BasketKey basketKey = receiptMemo.key(catalog, pricedOrder.getLines());
+        if (basketKey != null) {
+            ReceiptMemo.PricedBasket pricedBasket = receiptMemo.get(basketKey);
+            if (pricedBasket != null) {
+                String receipt = pricedBasket.applyTo(pricedOrder);
+                pricingMetrics.recordOrder(System.nanoTime() - started);
+                return receipt;
+            }
+        }
+
+        int lines = pricedOrder.getLines().size();
+        LineTotals lineTotals;
+        if (parallelLinePricer.shouldSplit(lines)) {
+            lineTotals = parallelLinePricer.price(pricedOrder, catalog);
+            stageStarted = System.nanoTime();
+        } else {
+            lineTotals = context.lineTotals();
+            for (int i = 0; i < lines; i++) {
+                stageStarted = lineTotals.price(pricedOrder, i, catalog, stageStarted);
             }
-            orderItem.setDiscount(discount);
-            totalPrice -= discount;
         }
-        modifiedOrder.setTotalPrice(totalPrice);
-        return generateReceipt(modifiedOrder);
+        pricingMetrics.recordLines(lineTotals.lookupNanos, lineTotals.typesSeen, lineTotals.discountNanos, lineTotals.discountMicrosByType);
+        pricedOrder.setTotalPriceMicros(lineTotals.totalPriceMicros);
+        String receipt = renderReceipt(pricedOrder, context.receipt());
+        long finished = System.nanoTime();
+        pricingMetrics.recordReceipt(finished - stageStarted);
+        pricingMetrics.recordOrder(finished - started);
+        if (basketKey != null) {
+            receiptMemo.put(basketKey, pricedOrder, receipt);
+        }
+        return receipt;
     }
 
     public List<String> getAllDiscountRules() {
-        List<String> discountRules = new ArrayList<>();
-        itemRepository.findAll().forEach(item -> discountRules.add(item.getDiscountRule()));
-        return discountRules;
+        return itemCatalog.snapshot().getDiscountRules();
     }
 
     public Map<String, Double> getPricesItemWise() {
-        Map<String, Double> pricesPerItem = new HashMap<>();
-        itemRepository.findAll().forEach(item -> pricesPerItem.put(item.getName(), item.getUnitPrice()));
-        return pricesPerItem;
+        return itemCatalog.snapshot().getPricesPerItem();
     }
 
-    private double calculateBreadDiscount(OrderItem orderItem) {
-        int age = orderItem.getAge();
-        int quantity = orderItem.getQuantity();
-        if (age <= 1) return 0.0;
-        else if (age <= 3) {
-            return orderItem.getPrice() * Math.max(0, (quantity / 2));
-
-        } else if (age <= 6) {
-            return orderItem.getPrice() * Math.max(0, 2 * (quantity / 3));
-        } else {
-            throw new IllegalArgumentException("Bread older than six days can not be added to the order.");
+    String generateReceipt(PricedOrder pricedOrder) {
+        PricingContext context = PricingContext.acquire();
+        try {
+            return renderReceipt(pricedOrder, context.receipt());
+        } finally {
+            context.release();
         }
     }
 
-    private double calculateDiscountForVegetable(OrderItem orderItem) {
-        double weight = orderItem.getWeight();
-        double price = orderItem.getPrice() * weight / 100;
-        if (weight <= 100) {
-            return price * 0.05;
-        } else if (weight <= 500) {
-            return price * 0.07;
-        } else {
-            return price * 0.10;
+    private static String renderReceipt(PricedOrder pricedOrder, StringBuilder receipt) {
+        receipt.append("Order details:\n");
+        List<OrderRequest.Line> lines = pricedOrder.getLines();
+        for (int i = 0; i < lines.size(); i++) {
+            OrderRequest.Line line = lines.get(i);
+            Item.ProductType product = Item.ProductType.named(line.name());
+            (product == null ? ITEM_LINE : RECEIPT_LINES[product.ordinal()])
+                    .append(receipt, line, pricedOrder.getPriceMicros(i), pricedOrder.getDiscountMicros(i));
         }
+        receipt.append("Total: €");
+        ReceiptWriter.appendEuros(receipt, pricedOrder.getTotalPriceMicros()).append('\n');
+        return receipt.toString();
     }
 
-    private double calculateDiscountForBeer(OrderItem orderItem) {
-        String origin = orderItem.getOrigin();
-        int packOfSix = orderItem.getQuantity() / 6;
-        if (packOfSix <= 0) return 0.0;
-        switch (origin) {
-            case "Dutch" -> {
-                return 2.0 * packOfSix;
-            }
-            case "German" -> {
-                return 4.0 * packOfSix;
-            }
-            case "Belgium" -> {
-                return 3.0 * packOfSix;
-            }
-            default -> {
-                return 0.0;
-            }
-        }
+    private static void appendVegetableLine(StringBuilder receipt, OrderRequest.Line line, long priceMicros, long discountMicros) {
+        ReceiptWriter.appendFixed(receipt, line.weight(), 1).append(" g x ").append(line.name()).append(": €");
+        ReceiptWriter.appendEuros(receipt, Money.perHundredGrams(priceMicros, Money.milligrams(line.weight())) - discountMicros).append('\n');
     }
 
-    private String generateReceipt(Order processedOrder) {
-        StringBuilder receipt = new StringBuilder();
-        receipt.append("Order details:\n");
-        for (OrderItem orderItem : processedOrder.getOrderItems()) {
-            if (orderItem.getName().equals("vegetable")) {
-                receipt.append(String.format("%.1f g x %s: €%.2f\n", orderItem.getWeight(), orderItem.getName(), orderItem.getPrice() * (orderItem.getWeight() / 100) - orderItem.getDiscount()));
-            } else if (orderItem.getName().equals("bread")) {
-                receipt.append(String.format("%d x %s (%d days old): €%.2f\n", orderItem.getQuantity(), orderItem.getName(), orderItem.getAge(), (orderItem.getPrice() * orderItem.getQuantity()) - orderItem.getDiscount()));
+    private static void appendBreadLine(StringBuilder receipt, OrderRequest.Line line, long priceMicros, long discountMicros) {
+        receipt.append(line.quantity()).append(" x ").append(line.name()).append(" (").append(line.age()).append(" days old): €");
+        ReceiptWriter.appendEuros(receipt, Money.times(priceMicros, line.quantity()) - discountMicros).append('\n');
+    }
+
+    private static void appendItemLine(StringBuilder receipt, OrderRequest.Line line, long priceMicros, long discountMicros) {
+        receipt.append(line.quantity()).append(" x ").append(line.name()).append(": €");
+        ReceiptWriter.appendEuros(receipt, Money.times(priceMicros, line.quantity()) - discountMicros).append('\n');
+    }
 
-            } else
-                receipt.append(String.format("%d x %s: €%.2f\n", orderItem.getQuantity(), orderItem.getName(), orderItem.getPrice() * orderItem.getQuantity() - orderItem.getDiscount()));
+    List<OrderRequest.Line> updateOrderCombineSameItemsToGetDiscount(OrderRequest order) {
+        PricingContext context = PricingContext.acquire();
+        try {
+            return combineSameItems(order.orderItems(), context.beersByOrigin());
+        } finally {
+            context.release();
         }
-        receipt.append(String.format("Total: €%.2f\n", processedOrder.getTotalPrice()));
-        return receipt.toString();
     }
 
-    private Order updateOrderCombineSameItemsToGetDiscount(Order order) {
-        Map<String, Integer> beerQuantities = new HashMap<>();
+    /**
+     * Combines all vegetable lines into one line, and the beer lines of an origin into one line once that origin
+     * adds up to at least a pack of six. Lines that are not combined keep their order and the combined lines are
+     * added after them. Runs in one pass over the lines and returns new lines, the lines ordered are not changed.
+     * Beer quantities are added up in {@code beersByOrigin}, which must be all zero.
+     */
+    private static List<OrderRequest.Line> combineSameItems(List<OrderRequest.Line> orderItems, int[] beersByOrigin) {
         double totalWeightOfVegetablesInOrder = 0.0;
-
-        for (OrderItem orderItem : order.getOrderItems()) {
-            switch (orderItem.getName()) {
-                case "Dutch beer", "German beer", "Belgium beer" ->
-                        beerQuantities.merge(orderItem.getOrigin(), orderItem.getQuantity(), Integer::sum);
-                case "vegetable" -> totalWeightOfVegetablesInOrder += orderItem.getWeight();
+        for (int i = 0; i < orderItems.size(); i++) {
+            OrderRequest.Line line = orderItems.get(i);
+            Item.ProductType product = Item.ProductType.named(line.name());
+            if (product == Item.ProductType.VEGETABLE) {
+                totalWeightOfVegetablesInOrder += line.weight();
+            } else if (product != null && product.origin() != null) {
+                Item.Origin origin = Item.Origin.of(line.origin());
+                if (origin != null) beersByOrigin[origin.ordinal()] += line.quantity();
             }
         }
+        boolean combineVegetables = totalWeightOfVegetablesInOrder > 0;
+        int combinedOrigins = 0;
+        for (Item.Origin origin : ORIGINS) {
+            if (beersByOrigin[origin.ordinal()] >= 6) combinedOrigins |= 1 << origin.ordinal();
+        }
 
-        combineVegetableItems(order, totalWeightOfVegetablesInOrder);
-        combineBeerItems(order, "Dutch", beerQuantities.getOrDefault("Dutch", 0));
-        combineBeerItems(order, "German", beerQuantities.getOrDefault("German", 0));
-        combineBeerItems(order, "Belgium", beerQuantities.getOrDefault("Belgium", 0));
-
-        return order;
+        List<OrderRequest.Line> combinedItems = new ArrayList<>(orderItems.size() + 4);
+        for (int i = 0; i < orderItems.size(); i++) {
+            OrderRequest.Line line = orderItems.get(i);
+            Item.ProductType product = Item.ProductType.named(line.name());
+            boolean combined;
+            if (product == Item.ProductType.VEGETABLE) {
+                combined = combineVegetables;
+            } else if (product != null && product.origin() != null) {
+                combined = (combinedOrigins & 1 << product.origin().ordinal()) != 0 && Item.Origin.of(line.origin()) == product.origin();
+            } else {
+                combined = false;
+            }
+            if (!combined) {
+                combinedItems.add(line);
+            }
+        }
+        if (combineVegetables) combinedItems.add(new OrderRequest.Line(Item.ProductType.VEGETABLE.productName(), 0, 0, "", totalWeightOfVegetablesInOrder));
+        for (Item.Origin origin : ORIGINS) {
+            if ((combinedOrigins & 1 << origin.ordinal()) != 0) {
+                combinedItems.add(new OrderRequest.Line(Item.ProductType.ofOrigin(origin).productName(), beersByOrigin[origin.ordinal()], 0, origin.label(), 0));
+            }
+        }
+        return Collections.unmodifiableList(combinedItems);
     }
 
-    private void combineVegetableItems(Order order, double totalWeight) {
-        if (totalWeight > 0) {
-            List<OrderItem> itemsToBeCombined = order.getOrderItems().stream()
-                    .filter(orderItem -> orderItem.getName().equals("vegetable")).toList();
-
-            order.getOrderItems().removeAll(itemsToBeCombined);
-            order.getOrderItems().add(new OrderItem("vegetable", 0, 0, totalWeight, ""));
+    private static OrderRequest toRequest(Order order) {
+        if (order == null) {
+            return null;
         }
+        if (order.getOrderItems() == null) {
+            return new OrderRequest(null);
+        }
+        List<OrderRequest.Line> lines = new ArrayList<>(order.getOrderItems().size());
+        for (OrderItem orderItem : order.getOrderItems()) {
+            lines.add(new OrderRequest.Line(orderItem.getName(), orderItem.getQuantity(), orderItem.getAge(), orderItem.getOrigin(), orderItem.getWeight()));
+        }
+        return new OrderRequest(lines);
     }
 
-    private void combineBeerItems(Order order, String origin, int totalQuantity) {
-        if (totalQuantity >= 6) {
-            List<OrderItem> itemsToBeCombined = order.getOrderItems().stream()
-                    .filter(orderItem -> orderItem.getName().equals(origin + " beer") && orderItem.getOrigin().equals(origin)).toList();
+    private static ReceiptLine[] receiptLines() {
+        ReceiptLine[] receiptLines = new ReceiptLine[Item.ProductType.values().length];
+        Arrays.fill(receiptLines, ITEM_LINE);
+        receiptLines[Item.ProductType.VEGETABLE.ordinal()] = OrderService::appendVegetableLine;
+        receiptLines[Item.ProductType.BREAD.ordinal()] = OrderService::appendBreadLine;
+        return receiptLines;
+    }
 
-            order.getOrderItems().removeAll(itemsToBeCombined);
-            order.getOrderItems().add(new OrderItem(origin + " beer", totalQuantity, 0, 0, origin));
-        }
+    /**
+     * Appends the receipt line of a priced order line.
+     */
+    @FunctionalInterface
+    private interface ReceiptLine {
+        void append(StringBuilder receipt, OrderRequest.Line line, long priceMicros, long discountMicros);
     }
 
 }
-
@@ -0,0 +1,133 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.dto.OrderResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Prices an NDJSON (or json array) stream of orders and writes one NDJSON result per order, in input order.
+ * At most {@code maxInFlight} orders are parsed but not yet written at any time, so memory use does not
+ * depend on the size of the input.
+ */
+@Service
+public class OrderStreamService {
+    private static final Logger log = LoggerFactory.getLogger(OrderStreamService.class);
+
+    private final OrderService orderService;
+    private final ItemCatalog itemCatalog;
+    private final ExecutorService pricingExecutor;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader orderReader;
+    private final ObjectWriter resultWriter;
+    private final int maxInFlight;
+
+    public OrderStreamService(OrderService orderService, ItemCatalog itemCatalog,
+                              @Qualifier("pricingExecutor") ExecutorService pricingExecutor, ObjectMapper objectMapper,
+                              @Value("${grocery.streaming.max-in-flight:256}") int maxInFlight) {
+        this.orderService = orderService;
+        this.itemCatalog = itemCatalog;
+        this.pricingExecutor = pricingExecutor;
+        this.objectMapper = objectMapper;
+        this.orderReader = objectMapper.readerFor(OrderRequest.class);
+        this.resultWriter = objectMapper.writerFor(OrderResult.class);
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    public void processOrders(InputStream in, OutputStream out) throws IOException {
+        CatalogSnapshot catalog = itemCatalog.snapshot();
+        Deque<Pending> inFlight = new ArrayDeque<>(maxInFlight);
+        int index = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(in);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            try {
+                JsonToken token = parser.nextToken();
+                boolean array = token == JsonToken.START_ARRAY;
+                if (array) {
+                    token = parser.nextToken();
+                }
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    OrderRequest request = orderReader.readValue(parser);
+                    int orderIndex = index++;
+                    writeCompleted(generator, inFlight, inFlight.size() == maxInFlight);
+                    inFlight.add(new Pending(orderIndex, pricingExecutor.submit(
+                            () -> orderService.processOrderInBatch(orderIndex, request, catalog))));
+                    token = parser.nextToken();
+                }
+            } catch (JsonProcessingException ex) {
+                while (!inFlight.isEmpty()) {
+                    write(generator, await(inFlight.poll()));
+                }
+                write(generator, OrderResult.error(index, "Order could not be read: " + ex.getOriginalMessage()));
+                generator.flush();
+                return;
+            }
+            while (!inFlight.isEmpty()) {
+                write(generator, await(inFlight.poll()));
+            }
+            generator.flush();
+        } finally {
+            inFlight.forEach(pending -> pending.result().cancel(true));
+        }
+    }
+
+    private void writeCompleted(JsonGenerator generator, Deque<Pending> inFlight, boolean waitForOldest) throws IOException {
+        boolean written = false;
+        if (waitForOldest) {
+            write(generator, await(inFlight.poll()));
+            written = true;
+        }
+        while (!inFlight.isEmpty() && inFlight.peek().result().isDone()) {
+            write(generator, await(inFlight.poll()));
+            written = true;
+        }
+        if (written) {
+            generator.flush();
+        }
+    }
+
+    private void write(JsonGenerator generator, OrderResult result) throws IOException {
+        resultWriter.writeValue(generator, result);
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * The result of a pending order. An order that failed unexpectedly gets an error result like any other invalid
+     * order, since the response has already started and the orders after it are still priced.
+     */
+    private OrderResult await(Pending pending) throws IOException {
+        try {
+            return pending.result().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while pricing orders.", ex);
+        } catch (ExecutionException ex) {
+            log.error("Could not price order {} of a stream", pending.index(), ex.getCause());
+            return OrderResult.error(pending.index(), OrderService.UNEXPECTED_ERROR);
+        }
+    }
+
+    private record Pending(int index, Future<OrderResult> result) {
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind persistence of priced orders. Pricing threads put orders on a bounded queue and a single writer thread
+ * saves them in batches of up to {@code batch-size}, at least every {@code flush-interval}. The entities of a batch are
+ * built anew for every attempt to save it. A full queue blocks the pricing thread instead of dropping orders. The writer stops after
+ * the web server, drains the queue before the data source closes, and orders priced after that are saved synchronously.
+ * <p>
+ * The client has its receipt before the order is saved, so queued orders are lost if the process dies. A batch that
+ * fails is tried {@code max-attempts} times with a doubling {@code retry-backoff}, and then its orders are saved one
+ * at a time, like orders saved synchronously, so that only the orders that can not be saved are counted as failed and
+ * logged. If the writer has not finished within {@code shutdown-timeout}, the stopping thread saves what is left.
+ */
+@Component
+@Profile("!reactive")
+public class OrderWriteBehind implements PricedOrderSink, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderWriteBehind.class);
+    // the embedded web server stops in phase DEFAULT_PHASE - 1024, so no request can enqueue after the final drain
+    private static final int WEB_SERVER_STOPPED_PHASE = DEFAULT_PHASE - 2048;
+    private static final long STOP_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PricedOrder> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Duration shutdownTimeout;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final Counter persistedOrders;
+    private final Counter retriedBatches;
+    private final Counter failedOrders;
+    private final Timer flushTimer;
+    private final ReadWriteLock accepting = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread writer;
+
+    public OrderWriteBehind(OrderRepository orderRepository, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                            @Value("${grocery.orders.write-behind.queue-capacity:10000}") int queueCapacity,
+                            @Value("${grocery.orders.write-behind.batch-size:500}") int batchSize,
+                            @Value("${grocery.orders.write-behind.flush-interval:200ms}") Duration flushInterval,
+                            @Value("${grocery.orders.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout,
+                            @Value("${grocery.orders.write-behind.max-attempts:3}") int maxAttempts,
+                            @Value("${grocery.orders.write-behind.retry-backoff:100ms}") Duration retryBackoff) {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.shutdownTimeout = shutdownTimeout;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoff.toMillis();
+        Gauge.builder("grocery.orders.write_behind.queue.depth", queue, BlockingQueue::size)
+                .description("Priced orders waiting to be persisted")
+                .register(meterRegistry);
+        this.persistedOrders = meterRegistry.counter("grocery.orders.write_behind.persisted");
+        this.retriedBatches = meterRegistry.counter("grocery.orders.write_behind.retried");
+        this.failedOrders = meterRegistry.counter("grocery.orders.write_behind.failed");
+        this.flushTimer = meterRegistry.timer("grocery.orders.write_behind.flush");
+    }
+
+    /**
+     * Queues the order, waiting while the queue is full, or saves it right away once the writer is stopping. The wait
+     * is in short polls that give up when the writer stops, and {@link #stop()} waits for every call that saw it
+     * running to finish queueing before it saves what is queued, so no order is left behind in the queue.
+     */
+    @Override
+    public void accept(PricedOrder pricedOrder) {
+        boolean interrupted = false;
+        accepting.readLock().lock();
+        try {
+            while (running) {
+                if (queue.offer(pricedOrder, STOP_CHECK_NANOS, TimeUnit.NANOSECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            interrupted = true;
+        } finally {
+            accepting.readLock().unlock();
+        }
+        save(List.of(pricedOrder));
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        writer = new Thread(this::writeLoop, "order-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        // waits for the calls to accept() that saw the writer running, later calls save their order themselves
+        accepting.writeLock().lock();
+        accepting.writeLock().unlock();
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("Order writer did not finish within {}, saving the {} orders still queued", shutdownTimeout, queue.size());
+        }
+        drain();
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return WEB_SERVER_STOPPED_PHASE;
+    }
+
+    int queueDepth() {
+        return queue.size();
+    }
+
+    private void writeLoop() {
+        List<PricedOrder> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException ex) {
+                break;
+            }
+            flush(batch);
+        }
+        flush(batch);
+        drain();
+    }
+
+    private void drain() {
+        List<PricedOrder> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * Waits in short polls rather than blocking indefinitely, so that {@link #stop()} never has to interrupt a thread
+     * that may be inside JDBC or file I/O.
+     */
+    private void fillBatch(List<PricedOrder> batch) throws InterruptedException {
+        long deadline = 0L;
+        while (running && batch.size() < batchSize) {
+            long now = System.nanoTime();
+            long wait = STOP_CHECK_NANOS;
+            if (!batch.isEmpty()) {
+                if (deadline == 0L) {
+                    deadline = now + flushIntervalNanos;
+                }
+                if (deadline - now <= 0) {
+                    return;
+                }
+                wait = Math.min(wait, deadline - now);
+            }
+            PricedOrder next = queue.poll(wait, TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+        }
+    }
+
+    private void flush(List<PricedOrder> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        flushTimer.record(() -> save(batch));
+        batch.clear();
+    }
+
+    /**
+     * Every attempt saves entities built anew from the priced orders: a rolled back attempt leaves the ids it was given
+     * on its entities, which would make the next attempt merge them as if they existed.
+     */
+    private void save(List<PricedOrder> pricedOrders) {
+        long backoffMillis = retryBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> orderRepository.saveAll(toOrders(pricedOrders)));
+                persistedOrders.increment(pricedOrders.size());
+                return;
+            } catch (RuntimeException ex) {
+                if (attempt == maxAttempts) {
+                    log.warn("Could not persist {} priced orders after {} attempts", pricedOrders.size(), attempt, ex);
+                    break;
+                }
+                retriedBatches.increment();
+                log.warn("Could not persist {} priced orders, retrying in {} ms", pricedOrders.size(), backoffMillis, ex);
+                if (!sleep(backoffMillis)) {
+                    break;
+                }
+                backoffMillis *= 2;
+            }
+        }
+        for (PricedOrder order : pricedOrders) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> orderRepository.save(order.toOrder()));
+                persistedOrders.increment();
+            } catch (RuntimeException ex) {
+                failedOrders.increment();
+                log.error("Could not persist priced order placed at {} for catalog version {}", order.getPlacedAt(), order.getCatalogVersion(), ex);
+            }
+        }
+    }
+
+    private static List<Order> toOrders(List<PricedOrder> pricedOrders) {
+        List<Order> orders = new ArrayList<>(pricedOrders.size());
+        for (PricedOrder pricedOrder : pricedOrders) {
+            orders.add(pricedOrder.toOrder());
+        }
+        return orders;
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.online.grocery.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Prices the lines of baskets with at least {@code grocery.pricing.parallel.threshold} lines (after consolidation)
+ * on the line pricing fork/join pool. The lines are split in halves down to a few chunks per worker, and the
+ * subtotals are added back in line order. A failing line does not stop the other chunks, but the failure of the
+ * first failing line is the one thrown, as it would be when pricing line by line.
+ */
+@Component
+public class ParallelLinePricer {
+    static final ParallelLinePricer NONE = new ParallelLinePricer(null, Integer.MAX_VALUE);
+    private static final int MIN_CHUNK_LINES = 256;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    @Autowired
+    public ParallelLinePricer(@Qualifier("linePricingPool") ForkJoinPool pool,
+                              @Value("${grocery.pricing.parallel.threshold:4096}") int threshold) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("grocery.pricing.parallel.threshold must be at least 2.");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    boolean shouldSplit(int lines) {
+        return pool != null && lines >= threshold;
+    }
+
+    LineTotals price(PricedOrder order, CatalogSnapshot catalog) {
+        int lines = order.getLines().size();
+        int chunkLines = Math.max(MIN_CHUNK_LINES, lines / (pool.getParallelism() * 4));
+        PricedLines priced = pool.invoke(new PriceLines(order, catalog, 0, lines, chunkLines));
+        if (priced.failure != null) {
+            throw priced.failure;
+        }
+        return priced.totals;
+    }
+
+    private static final class PricedLines {
+        final LineTotals totals = new LineTotals();
+        RuntimeException failure;
+    }
+
+    private static final class PriceLines extends RecursiveTask<PricedLines> {
+        private final PricedOrder order;
+        private final CatalogSnapshot catalog;
+        private final int from;
+        private final int to;
+        private final int chunkLines;
+
+        PriceLines(PricedOrder order, CatalogSnapshot catalog, int from, int to, int chunkLines) {
+            this.order = order;
+            this.catalog = catalog;
+            this.from = from;
+            this.to = to;
+            this.chunkLines = chunkLines;
+        }
+
+        @Override
+        protected PricedLines compute() {
+            if (to - from <= chunkLines) {
+                PricedLines priced = new PricedLines();
+                long finished = System.nanoTime();
+                try {
+                    for (int i = from; i < to; i++) {
+                        finished = priced.totals.price(order, i, catalog, finished);
+                    }
+                } catch (RuntimeException ex) {
+                    priced.failure = ex;
+                }
+                return priced;
+            }
+            int middle = (from + to) >>> 1;
+            PriceLines first = new PriceLines(order, catalog, from, middle, chunkLines);
+            first.fork();
+            PricedLines second = new PriceLines(order, catalog, middle, to, chunkLines).compute();
+            PricedLines priced = first.join();
+            if (priced.failure == null) {
+                priced.failure = second.failure;
+                priced.totals.add(second.totals);
+            }
+            return priced;
+        }
+    }
+}
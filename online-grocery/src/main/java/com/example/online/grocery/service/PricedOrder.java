@@ -0,0 +1,106 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.entity.OrderItem;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An order as it was priced: the lines after same items are combined, in receipt order, with the catalog item, unit
+ * price and discount of each line, and the order total. Pricing fills it in line by line and it is not changed once
+ * the receipt is rendered, so the receipt memo keeps its arrays as they are. The JPA entities are built from it only
+ * when it is persisted, by {@link #toOrder()}.
+ */
+public final class PricedOrder {
+    private final List<OrderRequest.Line> lines;
+    private final Item[] items;
+    private final long[] priceMicros;
+    private final long[] discountMicros;
+    private final long catalogVersion;
+    private final Instant placedAt;
+    private long totalPriceMicros;
+
+    PricedOrder(List<OrderRequest.Line> lines, long catalogVersion, Instant placedAt) {
+        this.lines = lines;
+        this.items = new Item[lines.size()];
+        this.priceMicros = new long[lines.size()];
+        this.discountMicros = new long[lines.size()];
+        this.catalogVersion = catalogVersion;
+        this.placedAt = placedAt;
+    }
+
+    void price(int line, Item item, long priceMicros, long discountMicros) {
+        this.items[line] = item;
+        this.priceMicros[line] = priceMicros;
+        this.discountMicros[line] = discountMicros;
+    }
+
+    void setTotalPriceMicros(long totalPriceMicros) {
+        this.totalPriceMicros = totalPriceMicros;
+    }
+
+    public List<OrderRequest.Line> getLines() {
+        return lines;
+    }
+
+    public Item getItem(int line) {
+        return items[line];
+    }
+
+    public long getPriceMicros(int line) {
+        return priceMicros[line];
+    }
+
+    public long getDiscountMicros(int line) {
+        return discountMicros[line];
+    }
+
+    public long getTotalPriceMicros() {
+        return totalPriceMicros;
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public Instant getPlacedAt() {
+        return placedAt;
+    }
+
+    Item[] items() {
+        return items;
+    }
+
+    long[] priceMicros() {
+        return priceMicros;
+    }
+
+    long[] discountMicros() {
+        return discountMicros;
+    }
+
+    /**
+     * A new, unsaved order entity with one order item per line.
+     */
+    public Order toOrder() {
+        List<OrderItem> orderItems = new ArrayList<>(lines.size());
+        Order order = new Order(orderItems);
+        for (int i = 0; i < lines.size(); i++) {
+            OrderRequest.Line line = lines.get(i);
+            OrderItem orderItem = new OrderItem(line.name(), line.quantity(), line.age(), line.weight(), line.origin());
+            orderItem.setItem(items[i]);
+            orderItem.setOrder(order);
+            orderItem.setPriceMicros(priceMicros[i]);
+            orderItem.setDiscountMicros(discountMicros[i]);
+            orderItems.add(orderItem);
+        }
+        order.setTotalPriceMicros(totalPriceMicros);
+        order.setCatalogVersion(catalogVersion);
+        order.setPlacedAt(placedAt);
+        return order;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.online.grocery.service;
+
+/**
+ * Receives every successfully priced order. Implementations must not block pricing for longer than it takes to hand
+ * the order over.
+ */
+@FunctionalInterface
+public interface PricedOrderSink {
+    PricedOrderSink NONE = order -> {
+    };
+
+    void accept(PricedOrder pricedOrder);
+}
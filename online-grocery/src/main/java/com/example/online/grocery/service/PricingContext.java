@@ -0,0 +1,87 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.entity.Item;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Scratch state reused from one order to the next: the beer and line totals, the receipt buffer and the last time
+ * read, so that pricing allocates only the order it persists and the receipt it returns. Platform threads keep one
+ * context each. Virtual threads are created per task, so they borrow one from a small pool instead and give it back,
+ * and when the pool is empty a new context is created and dropped afterwards.
+ */
+final class PricingContext {
+    private static final int MAX_RETAINED_RECEIPT_BUFFER = 64 * 1024;
+    private static final int INITIAL_RECEIPT_BUFFER = 512;
+    private static final ThreadLocal<PricingContext> PER_THREAD = ThreadLocal.withInitial(PricingContext::new);
+    private static final AtomicReferenceArray<PricingContext> POOL =
+            new AtomicReferenceArray<>(2 * Runtime.getRuntime().availableProcessors());
+
+    private final LineTotals lineTotals = new LineTotals();
+    private final int[] beersByOrigin = new int[Item.Origin.values().length];
+    private StringBuilder receipt = new StringBuilder(INITIAL_RECEIPT_BUFFER);
+    private long clockMillis = Long.MIN_VALUE;
+    private Instant clock;
+
+    static PricingContext acquire() {
+        if (!Thread.currentThread().isVirtual()) {
+            return PER_THREAD.get();
+        }
+        for (int i = 0; i < POOL.length(); i++) {
+            PricingContext context = POOL.get(i);
+            if (context != null && POOL.compareAndSet(i, context, null)) {
+                return context;
+            }
+        }
+        return new PricingContext();
+    }
+
+    /**
+     * Gives the context back once the order it priced is no longer being worked on.
+     */
+    void release() {
+        if (receipt.capacity() > MAX_RETAINED_RECEIPT_BUFFER) {
+            receipt = new StringBuilder(INITIAL_RECEIPT_BUFFER);
+        }
+        if (!Thread.currentThread().isVirtual()) {
+            return;
+        }
+        for (int i = 0; i < POOL.length(); i++) {
+            if (POOL.get(i) == null && POOL.compareAndSet(i, null, this)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Beer quantities of an order by {@link Item.Origin} ordinal, all zero.
+     */
+    int[] beersByOrigin() {
+        Arrays.fill(beersByOrigin, 0);
+        return beersByOrigin;
+    }
+
+    LineTotals lineTotals() {
+        lineTotals.reset();
+        return lineTotals;
+    }
+
+    StringBuilder receipt() {
+        receipt.setLength(0);
+        return receipt;
+    }
+
+    /**
+     * The current time to the millisecond. Orders priced within the same millisecond share one {@link Instant}.
+     */
+    Instant now() {
+        long millis = System.currentTimeMillis();
+        if (millis != clockMillis) {
+            clock = Instant.ofEpochMilli(millis);
+            clockMillis = millis;
+        }
+        return clock;
+    }
+}
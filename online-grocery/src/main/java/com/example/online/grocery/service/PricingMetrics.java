@@ -0,0 +1,127 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.exceptions.ItemNotFoundException;
+import com.example.online.grocery.exceptions.NotValidOrderException;
+import com.example.online.grocery.util.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the pricing stages. Every meter, including the per product type ones, is registered up front and kept in
+ * arrays indexed by {@link Item.ProductType#ordinal()}, so recording an order never builds tags or looks meters up.
+ * Line level timings are summed per order and recorded once per order.
+ */
+@Component
+public class PricingMetrics {
+    private static final Item.ProductType[] PRODUCT_TYPES = Item.ProductType.values();
+
+    static final PricingMetrics NONE = new PricingMetrics(new CompositeMeterRegistry());
+
+    private final Timer orderTimer;
+    private final Timer consolidationTimer;
+    private final Timer lookupTimer;
+    private final Timer receiptTimer;
+    private final Timer[] discountTimers = new Timer[PRODUCT_TYPES.length];
+    private final Counter[] discountTotals = new Counter[PRODUCT_TYPES.length];
+    private final DistributionSummary basketLines;
+    private final Counter mergedLines;
+    private final Counter itemNotFound;
+    private final Counter notValidOrder;
+    private final Counter invalidLine;
+    private final Counter failed;
+
+    public PricingMetrics(MeterRegistry registry) {
+        orderTimer = stageTimer(registry, "order");
+        consolidationTimer = stageTimer(registry, "consolidation");
+        lookupTimer = stageTimer(registry, "lookup");
+        receiptTimer = stageTimer(registry, "receipt");
+        for (Item.ProductType type : PRODUCT_TYPES) {
+            discountTimers[type.ordinal()] = Timer.builder("grocery.pricing.discount.time")
+                    .description("Time spent calculating discounts of one order, per product type")
+                    .tag("type", type.name())
+                    .publishPercentileHistogram()
+                    .register(registry);
+            discountTotals[type.ordinal()] = Counter.builder("grocery.pricing.discount.total")
+                    .description("Discount given, per product type")
+                    .baseUnit("euros")
+                    .tag("type", type.name())
+                    .register(registry);
+        }
+        basketLines = DistributionSummary.builder("grocery.pricing.basket.lines")
+                .description("Lines per order as submitted")
+                .publishPercentileHistogram()
+                .register(registry);
+        mergedLines = Counter.builder("grocery.pricing.lines.merged")
+                .description("Lines removed by combining same items")
+                .register(registry);
+        itemNotFound = rejected(registry, ItemNotFoundException.class);
+        notValidOrder = rejected(registry, NotValidOrderException.class);
+        invalidLine = rejected(registry, IllegalArgumentException.class);
+        failed = Counter.builder("grocery.pricing.failed")
+                .description("Orders that could not be priced because of an unexpected error")
+                .register(registry);
+    }
+
+    void recordConsolidation(int submittedLines, int consolidatedLines, long nanos) {
+        basketLines.record(submittedLines);
+        mergedLines.increment(submittedLines - consolidatedLines);
+        consolidationTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param typesSeen bit set of the product type ordinals present in the order
+     */
+    void recordLines(long lookupNanos, int typesSeen, long[] discountNanos, long[] discountMicros) {
+        lookupTimer.record(lookupNanos, TimeUnit.NANOSECONDS);
+        for (int ordinal = 0; ordinal < PRODUCT_TYPES.length; ordinal++) {
+            if ((typesSeen & (1 << ordinal)) != 0) {
+                discountTimers[ordinal].record(discountNanos[ordinal], TimeUnit.NANOSECONDS);
+                if (discountMicros[ordinal] != 0) {
+                    discountTotals[ordinal].increment(Money.toEuros(discountMicros[ordinal]));
+                }
+            }
+        }
+    }
+
+    void recordReceipt(long nanos) {
+        receiptTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordOrder(long nanos) {
+        orderTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordRejected(RuntimeException ex) {
+        if (ex instanceof ItemNotFoundException) {
+            itemNotFound.increment();
+        } else if (ex instanceof NotValidOrderException) {
+            notValidOrder.increment();
+        } else if (ex instanceof IllegalArgumentException) {
+            invalidLine.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    private static Timer stageTimer(MeterRegistry registry, String stage) {
+        return Timer.builder("grocery.pricing.stage")
+                .description("Time spent in one pricing stage of one order")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Counter rejected(MeterRegistry registry, Class<? extends RuntimeException> exception) {
+        return Counter.builder("grocery.pricing.rejected")
+                .description("Orders rejected while pricing")
+                .tag("exception", exception.getSimpleName())
+                .register(registry);
+    }
+}
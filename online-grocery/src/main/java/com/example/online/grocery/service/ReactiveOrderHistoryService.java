@@ -0,0 +1,80 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderLine;
+import com.example.online.grocery.dto.OrderPage;
+import com.example.online.grocery.dto.OrderSummary;
+import com.example.online.grocery.repository.ReactiveOrderRepository;
+import com.example.online.grocery.util.Money;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link OrderHistoryService} over R2DBC for the {@code reactive} profile: the same pages and export, read without
+ * blocking a thread.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveOrderHistoryService {
+
+    private final ReactiveOrderRepository orderRepository;
+
+    public ReactiveOrderHistoryService(ReactiveOrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    /**
+     * @see OrderHistoryService#findOrders(Instant, Instant, Instant, Integer, int)
+     */
+    public Mono<OrderPage> findOrders(Instant from, Instant to, Instant afterPlacedAt, Integer afterOrderId, int limit) {
+        return Mono.fromSupplier(() -> OrderHistoryService.PageRequest.of(from, to, afterPlacedAt, afterOrderId, limit))
+                .flatMap(page -> orderRepository.findHeadersAfter(page.afterPlacedAt(), page.afterOrderId(), page.to(), limit + 1).collectList())
+                .flatMap(headers -> {
+                    boolean more = headers.size() > limit;
+                    List<ReactiveOrderRepository.OrderRow> shown = more ? headers.subList(0, limit) : headers;
+                    if (shown.isEmpty()) {
+                        return Mono.just(new OrderPage(List.of(), null));
+                    }
+                    List<Integer> orderIds = shown.stream().map(ReactiveOrderRepository.OrderRow::orderId).toList();
+                    return orderRepository.findLines(orderIds)
+                            .collect(HashMap<Integer, List<OrderLine>>::new,
+                                    (lines, row) -> lines.computeIfAbsent(row.orderId(), orderId -> new ArrayList<>()).add(line(row)))
+                            .map(lines -> page(shown, lines, more));
+                });
+    }
+
+    /**
+     * Every order placed in [from, to), each emitted as soon as its last line has been read.
+     */
+    public Flux<OrderSummary> exportOrders(Instant from, Instant to) {
+        return orderRepository.streamLines(from == null ? OrderHistoryService.BEGINNING : from, to == null ? OrderHistoryService.END : to)
+                .bufferUntilChanged(ReactiveOrderRepository.OrderLineRow::orderId)
+                .map(rows -> {
+                    ReactiveOrderRepository.OrderLineRow header = rows.get(0);
+                    return new OrderSummary(header.orderId(), header.placedAt(), header.catalogVersion(),
+                            Money.toEuros(header.totalPriceMicros()), rows.stream().map(ReactiveOrderHistoryService::line).toList());
+                });
+    }
+
+    private static OrderPage page(List<ReactiveOrderRepository.OrderRow> headers, Map<Integer, List<OrderLine>> linesByOrder, boolean more) {
+        List<OrderSummary> orders = new ArrayList<>(headers.size());
+        for (ReactiveOrderRepository.OrderRow header : headers) {
+            orders.add(new OrderSummary(header.orderId(), header.placedAt(), header.catalogVersion(),
+                    Money.toEuros(header.totalPriceMicros()), linesByOrder.getOrDefault(header.orderId(), List.of())));
+        }
+        ReactiveOrderRepository.OrderRow last = headers.get(headers.size() - 1);
+        return new OrderPage(orders, more ? new OrderPage.Cursor(last.placedAt(), last.orderId()) : null);
+    }
+
+    private static OrderLine line(ReactiveOrderRepository.OrderLineRow row) {
+        return new OrderLine(row.name(), row.quantity(), row.age(), row.origin(), row.weight(),
+                Money.toEuros(row.priceMicros()), Money.toEuros(row.discountMicros()));
+    }
+}
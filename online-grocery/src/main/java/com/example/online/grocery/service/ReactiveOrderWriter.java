@@ -0,0 +1,287 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Write-behind persistence of priced orders over R2DBC, used by the {@code reactive} profile in place of
+ * {@link OrderWriteBehind}. Priced orders are put on a bounded queue, which is drained in batches of up to
+ * {@code batch-size} every {@code flush-interval}, each batch being two multi-row inserts in one transaction, bound
+ * straight from the priced orders. Orders are priced off the event loop, so a full queue blocks the pricing thread
+ * rather than starting a save of its own for every order that does not fit. Orders priced after the writer stopped
+ * are saved one at a time by the thread that priced them, as {@link OrderWriteBehind} does. Like it, a batch that
+ * fails is tried {@code max-attempts} times with a doubling {@code retry-backoff}, and then its orders are saved one
+ * at a time, so that only the orders that can not be saved are counted as failed and logged. Ids are taken
+ * from the sequences Hibernate uses, in blocks of {@code ID_ALLOCATION_SIZE} the way its pooled optimizer does, so both
+ * can write to the same tables.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveOrderWriter implements PricedOrderSink, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveOrderWriter.class);
+    private static final int WEB_SERVER_STOPPED_PHASE = DEFAULT_PHASE - 2048;
+    private static final int ID_ALLOCATION_SIZE = 50;
+    private static final String INSERT_ORDER =
+            "insert into orders (order_id, total_price_micros, catalog_version, placed_at) values ($1, $2, $3, $4)";
+    private static final String INSERT_LINE = """
+            insert into order_item (order_item_id, name, quantity, price_micros, discount_micros, age, origin, weight, item_id, order_id)
+            values ($1, $2, $3, $4, $5, $6, $7, $8, $9, $10)""";
+
+    private final ConnectionFactory connectionFactory;
+    private final BlockingQueue<PricedOrder> queue;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration shutdownTimeout;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Counter persistedOrders;
+    private final Counter retriedBatches;
+    private final Counter failedOrders;
+    private final Timer flushTimer;
+    private volatile boolean running;
+    private Disposable writer;
+
+    public ReactiveOrderWriter(ConnectionFactory connectionFactory, MeterRegistry meterRegistry,
+                               @Value("${grocery.orders.write-behind.queue-capacity:10000}") int queueCapacity,
+                               @Value("${grocery.orders.write-behind.batch-size:500}") int batchSize,
+                               @Value("${grocery.orders.write-behind.flush-interval:200ms}") Duration flushInterval,
+                               @Value("${grocery.orders.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout,
+                               @Value("${grocery.orders.write-behind.max-attempts:3}") int maxAttempts,
+                               @Value("${grocery.orders.write-behind.retry-backoff:100ms}") Duration retryBackoff) {
+        this.connectionFactory = connectionFactory;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.shutdownTimeout = shutdownTimeout;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoff = retryBackoff;
+        Gauge.builder("grocery.orders.write_behind.queue.depth", queue, BlockingQueue::size)
+                .description("Priced orders waiting to be persisted")
+                .register(meterRegistry);
+        this.persistedOrders = meterRegistry.counter("grocery.orders.write_behind.persisted");
+        this.retriedBatches = meterRegistry.counter("grocery.orders.write_behind.retried");
+        this.failedOrders = meterRegistry.counter("grocery.orders.write_behind.failed");
+        this.flushTimer = meterRegistry.timer("grocery.orders.write_behind.flush");
+    }
+
+    @Override
+    public void accept(PricedOrder pricedOrder) {
+        if (running) {
+            try {
+                queue.put(pricedOrder);
+            } catch (InterruptedException ex) {
+                save(List.of(pricedOrder)).block();
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        save(List.of(pricedOrder)).block();
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        writer = Flux.interval(flushInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> flushQueued(), 1)
+                .subscribe();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        writer.dispose();
+        writer = null;
+        try {
+            flushQueued().block(shutdownTimeout);
+        } catch (IllegalStateException ex) {
+            log.warn("Order writer did not finish within {}, {} orders are still queued", shutdownTimeout, queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return WEB_SERVER_STOPPED_PHASE;
+    }
+
+    /**
+     * Saves queued orders batch after batch until the queue is empty.
+     */
+    Mono<Void> flushQueued() {
+        return Mono.fromSupplier(this::nextBatch)
+                .flatMap(this::save)
+                .repeat(() -> !queue.isEmpty())
+                .then();
+    }
+
+    private List<PricedOrder> nextBatch() {
+        List<PricedOrder> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+        queue.drainTo(batch, batchSize);
+        return batch.isEmpty() ? null : batch;
+    }
+
+    private Mono<Void> save(List<PricedOrder> orders) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return transaction(orders)
+                    .retryWhen(Retry.backoff(maxAttempts - 1, retryBackoff).jitter(0)
+                            .doBeforeRetry(signal -> {
+                                retriedBatches.increment();
+                                log.warn("Could not persist {} priced orders, retrying", orders.size(), signal.failure());
+                            }))
+                    .doOnSuccess(rows -> persistedOrders.increment(orders.size()))
+                    .then()
+                    .onErrorResume(ex -> {
+                        log.warn("Could not persist {} priced orders after {} attempts", orders.size(), maxAttempts, ex);
+                        return saveEach(orders);
+                    })
+                    .doFinally(signal -> flushTimer.record(Duration.ofNanos(System.nanoTime() - started)));
+        });
+    }
+
+    /**
+     * Saves the orders of a batch that could not be saved one at a time, so that one bad order does not lose the rest.
+     */
+    private Mono<Void> saveEach(List<PricedOrder> orders) {
+        return Flux.fromIterable(orders)
+                .concatMap(order -> transaction(List.of(order))
+                        .doOnSuccess(rows -> persistedOrders.increment())
+                        .onErrorResume(ex -> {
+                            failedOrders.increment();
+                            log.error("Could not persist priced order placed at {} for catalog version {}", order.getPlacedAt(), order.getCatalogVersion(), ex);
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    /**
+     * Inserts {@code orders} in one transaction on a new connection, with new ids, every time it is subscribed.
+     */
+    private Mono<Long> transaction(List<PricedOrder> orders) {
+        return Mono.defer(() -> Mono.usingWhen(connectionFactory.create(),
+                connection -> Mono.from(connection.beginTransaction()).then(insert(connection, orders)),
+                connection -> Flux.concatDelayError(connection.commitTransaction(), connection.close()),
+                (connection, ex) -> Flux.concatDelayError(connection.rollbackTransaction(), connection.close()),
+                connection -> Flux.concatDelayError(connection.rollbackTransaction(), connection.close())));
+    }
+
+    private Mono<Long> insert(Connection connection, List<PricedOrder> orders) {
+        int lineCount = 0;
+        for (PricedOrder order : orders) {
+            lineCount += order.getLines().size();
+        }
+        return Mono.zip(nextIds(connection, "orders_seq", orders.size()), nextIds(connection, "order_item_seq", lineCount))
+                .flatMap(ids -> {
+                    Statement insertOrders = connection.createStatement(INSERT_ORDER);
+                    Statement insertLines = connection.createStatement(INSERT_LINE);
+                    int line = 0;
+                    for (int i = 0; i < orders.size(); i++) {
+                        PricedOrder order = orders.get(i);
+                        long orderId = ids.getT1()[i];
+                        if (i > 0) {
+                            insertOrders.add();
+                        }
+                        insertOrders.bind(0, (int) orderId)
+                                .bind(1, order.getTotalPriceMicros())
+                                .bind(2, order.getCatalogVersion())
+                                .bind(3, order.getPlacedAt());
+                        for (int j = 0; j < order.getLines().size(); j++) {
+                            if (line > 0) {
+                                insertLines.add();
+                            }
+                            bindLine(insertLines, (int) ids.getT2()[line++], order, j, (int) orderId);
+                        }
+                    }
+                    return rowsUpdated(insertOrders).zipWith(rowsUpdated(insertLines), Long::sum);
+                });
+    }
+
+    private static void bindLine(Statement insertLines, int orderItemId, PricedOrder order, int index, int orderId) {
+        OrderRequest.Line line = order.getLines().get(index);
+        insertLines.bind(0, orderItemId)
+                .bind(2, line.quantity())
+                .bind(3, order.getPriceMicros(index))
+                .bind(4, order.getDiscountMicros(index))
+                .bind(7, line.weight())
+                .bind(8, order.getItem(index).getItemId())
+                .bind(9, orderId);
+        bindNullable(insertLines, 1, line.name(), String.class);
+        bindNullable(insertLines, 5, line.age(), Integer.class);
+        bindNullable(insertLines, 6, line.origin(), String.class);
+    }
+
+    private static <T> void bindNullable(Statement statement, int index, T value, Class<T> type) {
+        if (value == null) {
+            statement.bindNull(index, type);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+
+    private static Mono<Long> rowsUpdated(Statement statement) {
+        return Flux.from(statement.execute())
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0L, Long::sum);
+    }
+
+    /**
+     * Reserves {@code count} ids of a sequence that increments by {@code ID_ALLOCATION_SIZE}. Each value read reserves
+     * the block of ids that ends with it, except the very first value of the sequence, which reserves only itself.
+     */
+    private static Mono<long[]> nextIds(Connection connection, String sequence, int count) {
+        long[] ids = new long[count];
+        return nextIds(connection, sequence, ids, 0);
+    }
+
+    private static Mono<long[]> nextIds(Connection connection, String sequence, long[] ids, int filled) {
+        if (filled == ids.length) {
+            return Mono.just(ids);
+        }
+        int blocks = (ids.length - filled + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE;
+        String query = "select next value for " + sequence + " from system_range(1, " + blocks + ")";
+        return Flux.from(connection.createStatement(query).execute())
+                .flatMap(result -> result.map((row, metadata) -> row.get(0, Long.class)))
+                .collectList()
+                .flatMap(highs -> {
+                    int next = filled;
+                    for (long high : highs) {
+                        for (long id = Math.max(1L, high - ID_ALLOCATION_SIZE + 1); id <= high && next < ids.length; id++) {
+                            ids[next++] = id;
+                        }
+                    }
+                    return nextIds(connection, sequence, ids, next);
+                });
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.entity.Item;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Optional memoization of priced baskets. The key is the consolidated basket, line by line and in receipt order,
+ * together with the version of the catalog it was priced with. Publishing a new catalog therefore makes every entry
+ * unreachable, and the first lookup against the new version also clears the cache. Entries keep the line prices and
+ * discounts next to the receipt, so a memoized order is still persisted in full.
+ */
+@Component
+public class ReceiptMemo {
+    static final ReceiptMemo NONE = new ReceiptMemo(null, false, 0, 0);
+
+    private final Cache<BasketKey, PricedBasket> pricedBaskets;
+    private final int maxLines;
+    private volatile long catalogVersion;
+
+    public ReceiptMemo(MeterRegistry meterRegistry,
+                       @Value("${grocery.pricing.receipt-cache.enabled:false}") boolean enabled,
+                       @Value("${grocery.pricing.receipt-cache.maximum-size:10000}") long maximumSize,
+                       @Value("${grocery.pricing.receipt-cache.max-lines:64}") int maxLines) {
+        this.maxLines = maxLines;
+        if (!enabled) {
+            this.pricedBaskets = null;
+            return;
+        }
+        this.pricedBaskets = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pricedBaskets, "receipts");
+    }
+
+    /**
+     * @return the key of the consolidated lines, or null when memoization is off or the basket is too large to be
+     * worth keeping
+     */
+    BasketKey key(CatalogSnapshot catalog, List<OrderRequest.Line> orderItems) {
+        if (pricedBaskets == null || orderItems.size() > maxLines) {
+            return null;
+        }
+        if (catalog.getVersion() > catalogVersion) {
+            catalogVersion = catalog.getVersion();
+            pricedBaskets.invalidateAll();
+        }
+        StringBuilder lines = new StringBuilder(orderItems.size() * 24);
+        for (OrderRequest.Line line : orderItems) {
+            lines.append(line.name()).append('\u0000')
+                    .append(line.quantity()).append('\u0000')
+                    .append(line.age()).append('\u0000')
+                    .append(line.origin()).append('\u0000')
+                    .append(Double.doubleToLongBits(line.weight())).append('\u0001');
+        }
+        return new BasketKey(catalog.getVersion(), lines.toString());
+    }
+
+    PricedBasket get(BasketKey key) {
+        return pricedBaskets.getIfPresent(key);
+    }
+
+    /**
+     * Keeps the line prices of an order whose pricing is finished, so its arrays are not copied.
+     */
+    void put(BasketKey key, PricedOrder pricedOrder, String receipt) {
+        pricedBaskets.put(key, new PricedBasket(receipt, pricedOrder.getTotalPriceMicros(), pricedOrder.items(),
+                pricedOrder.priceMicros(), pricedOrder.discountMicros()));
+    }
+
+    record BasketKey(long catalogVersion, String lines) {
+    }
+
+    record PricedBasket(String receipt, long totalPriceMicros, Item[] items, long[] priceMicros, long[] discountMicros) {
+
+        /**
+         * Prices the lines of an order with the same key as if it had gone through the pricing loop.
+         */
+        String applyTo(PricedOrder consolidatedOrder) {
+            for (int i = 0; i < items.length; i++) {
+                consolidatedOrder.price(i, items[i], priceMicros[i], discountMicros[i]);
+            }
+            consolidatedOrder.setTotalPriceMicros(totalPriceMicros);
+            return receipt;
+        }
+    }
+}
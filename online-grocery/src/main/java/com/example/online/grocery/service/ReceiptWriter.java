@@ -0,0 +1,105 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.util.Money;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Appends receipt numbers without going through {@link java.util.Formatter}. The output is the same as
+ * {@code String.format("%.1f")} and {@code String.format("%.2f")} in the default format locale, including the
+ * half-up rounding of ties and the sign of negative values that round to zero: values too close to a tie to be
+ * decided with double arithmetic, and values too large for the fast path, are handed to the formatter instead. Digits
+ * are written in ASCII and then localized the way the formatter does it, by the locale's zero digit and decimal
+ * separator.
+ */
+final class ReceiptWriter {
+    private static final double[] SCALES = {1.0, 10.0, 100.0};
+    private static final double FAST_PATH_LIMIT = 1e6;
+    private static final double TIE_TOLERANCE = 1e-6;
+
+    private static volatile Symbols symbols = Symbols.of(Locale.ROOT);
+
+    private ReceiptWriter() {
+    }
+
+    static StringBuilder appendFixed(StringBuilder out, double value, int decimals) {
+        int start = out.length();
+        if (!(Math.abs(value) < FAST_PATH_LIMIT)) {
+            return localize(appendFormatted(out, value, decimals), start);
+        }
+        double scaled = Math.abs(value) * SCALES[decimals];
+        double whole = Math.floor(scaled);
+        double fraction = scaled - whole;
+        if (Math.abs(fraction - 0.5) < TIE_TOLERANCE) {
+            return localize(appendFormatted(out, value, decimals), start);
+        }
+        long units = (long) whole + (fraction > 0.5 ? 1 : 0);
+        if (Double.doubleToRawLongBits(value) < 0) {
+            out.append('-');
+        }
+        long scale = (long) SCALES[decimals];
+        out.append(units / scale);
+        if (decimals > 0) {
+            out.append('.');
+            long fractionDigits = units % scale;
+            for (long digit = scale / 10; digit > 0; digit /= 10) {
+                out.append((char) ('0' + fractionDigits / digit % 10));
+            }
+        }
+        return localize(out, start);
+    }
+
+    /**
+     * Appends a micro-euro amount rounded half away from zero to cents, like {@code %.2f} of the exact amount. A
+     * negative amount that rounds to zero keeps its sign, as "-0.00".
+     */
+    static StringBuilder appendEuros(StringBuilder out, long micros) {
+        int start = out.length();
+        long cents = Money.toCents(micros);
+        if (micros < 0) {
+            out.append('-');
+        }
+        long absoluteCents = Math.abs(cents);
+        out.append(absoluteCents / 100).append('.');
+        long fraction = absoluteCents % 100;
+        out.append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+        return localize(out, start);
+    }
+
+    private static StringBuilder appendFormatted(StringBuilder out, double value, int decimals) {
+        return out.append(String.format(Locale.ROOT, "%." + decimals + "f", value));
+    }
+
+    private static StringBuilder localize(StringBuilder out, int start) {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        Symbols current = symbols;
+        if (!current.locale().equals(locale)) {
+            current = Symbols.of(locale);
+            symbols = current;
+        }
+        if (current.ascii()) {
+            return out;
+        }
+        for (int i = start; i < out.length(); i++) {
+            char c = out.charAt(i);
+            if (c >= '0' && c <= '9') {
+                out.setCharAt(i, (char) (c - '0' + current.zero()));
+            } else if (c == '.') {
+                out.setCharAt(i, current.decimalSeparator());
+            }
+        }
+        return out;
+    }
+
+    private record Symbols(Locale locale, char zero, char decimalSeparator) {
+        static Symbols of(Locale locale) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            return new Symbols(locale, symbols.getZeroDigit(), symbols.getDecimalSeparator());
+        }
+
+        boolean ascii() {
+            return zero == '0' && decimalSeparator == '.';
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.dto.SalesStats;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.util.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sales totals per product type, per origin and per day, added to as each order is priced so that reading them
+ * never touches saved orders. Counters are {@link LongAdder}s, so pricing threads do not contend on them. At most
+ * {@code MAX_ORIGINS} distinct origins are kept apart, later ones are counted as {@code OTHER_ORIGIN}, and days
+ * (UTC) older than {@code grocery.stats.retained-days} are dropped. An order placed on a dropped day still counts in the
+ * totals per type and origin.
+ */
+@Component
+public class SalesAggregates {
+    private static final Item.ProductType[] PRODUCT_TYPES = Item.ProductType.values();
+    private static final long SECONDS_PER_DAY = 86_400L;
+    static final int MAX_ORIGINS = 32;
+    static final String OTHER_ORIGIN = "other";
+
+    static final SalesAggregates NONE = new SalesAggregates(false, 1);
+
+    private final boolean enabled;
+    private final int retainedDays;
+    private final LongAdder orders = new LongAdder();
+    private final Totals[] byType = newTotalsByType();
+    private final ConcurrentHashMap<String, Totals> byOrigin = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Day> byDay = new ConcurrentSkipListMap<>();
+    private volatile Day today;
+
+    @Autowired
+    public SalesAggregates(@Value("${grocery.stats.retained-days:92}") int retainedDays) {
+        this(true, retainedDays);
+    }
+
+    private SalesAggregates(boolean enabled, int retainedDays) {
+        if (retainedDays < 1) {
+            throw new IllegalArgumentException("grocery.stats.retained-days must be positive.");
+        }
+        this.enabled = enabled;
+        this.retainedDays = retainedDays;
+    }
+
+    /**
+     * Adds a priced order by the item, unit price and discount of each of its lines.
+     */
+    void record(PricedOrder pricedOrder) {
+        if (!enabled) {
+            return;
+        }
+        Day day = day(Math.floorDiv(pricedOrder.getPlacedAt().getEpochSecond(), SECONDS_PER_DAY));
+        orders.increment();
+        if (day != null) {
+            day.orders.increment();
+        }
+        List<OrderRequest.Line> lines = pricedOrder.getLines();
+        for (int i = 0; i < lines.size(); i++) {
+            OrderRequest.Line line = lines.get(i);
+            Item.ProductType type = pricedOrder.getItem(i).getType();
+            long milligrams = Money.milligrams(line.weight());
+            long grossMicros = type == Item.ProductType.VEGETABLE
+                    ? Money.perHundredGrams(pricedOrder.getPriceMicros(i), milligrams)
+                    : Money.times(pricedOrder.getPriceMicros(i), line.quantity());
+            long discountMicros = pricedOrder.getDiscountMicros(i);
+            byType[type.ordinal()].add(line.quantity(), milligrams, grossMicros, discountMicros);
+            if (day != null) {
+                day.byType[type.ordinal()].add(line.quantity(), milligrams, grossMicros, discountMicros);
+            }
+            if (line.origin() != null && !line.origin().isEmpty()) {
+                origin(line.origin()).add(line.quantity(), milligrams, grossMicros, discountMicros);
+            }
+        }
+    }
+
+    public SalesStats stats() {
+        Map<Item.ProductType, SalesStats.Totals> types = new EnumMap<>(Item.ProductType.class);
+        Sum total = sumByType(byType, types);
+        Map<String, SalesStats.Totals> origins = new TreeMap<>();
+        byOrigin.forEach((origin, totals) -> origins.put(origin, totals.sum().view()));
+        Map<LocalDate, SalesStats.DailySales> days = new TreeMap<>();
+        byDay.forEach((epochDay, day) -> {
+            Map<Item.ProductType, SalesStats.Totals> dayTypes = new EnumMap<>(Item.ProductType.class);
+            Sum dayTotal = sumByType(day.byType, dayTypes);
+            days.put(LocalDate.ofEpochDay(epochDay), new SalesStats.DailySales(day.orders.sum(), dayTotal.view(), dayTypes));
+        });
+        return new SalesStats(orders.sum(), total.view(), types, origins, days);
+    }
+
+    /**
+     * The totals of the given day, or {@code null} if the day is older than the retention, so that a late order does
+     * not bring back a day that was dropped.
+     */
+    private Day day(long epochDay) {
+        Day current = today;
+        if (current != null && current.epochDay == epochDay) {
+            return current;
+        }
+        if (current != null && epochDay <= current.epochDay - retainedDays) {
+            return null;
+        }
+        Day day = byDay.computeIfAbsent(epochDay, Day::new);
+        if (current == null || epochDay > current.epochDay) {
+            today = day;
+            byDay.headMap(epochDay - retainedDays + 1).clear();
+        }
+        return day;
+    }
+
+    private Totals origin(String origin) {
+        Totals totals = byOrigin.get(origin);
+        if (totals != null) {
+            return totals;
+        }
+        if (byOrigin.size() >= MAX_ORIGINS) {
+            return byOrigin.computeIfAbsent(OTHER_ORIGIN, key -> new Totals());
+        }
+        return byOrigin.computeIfAbsent(origin, key -> new Totals());
+    }
+
+    /**
+     * Puts the totals of every product type that was sold into {@code types} and returns their sum.
+     */
+    private static Sum sumByType(Totals[] totals, Map<Item.ProductType, SalesStats.Totals> types) {
+        Sum total = Sum.ZERO;
+        for (Item.ProductType type : PRODUCT_TYPES) {
+            Sum sum = totals[type.ordinal()].sum();
+            if (sum.lines() > 0) {
+                types.put(type, sum.view());
+                total = total.plus(sum);
+            }
+        }
+        return total;
+    }
+
+    private static Totals[] newTotalsByType() {
+        Totals[] totals = new Totals[PRODUCT_TYPES.length];
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = new Totals();
+        }
+        return totals;
+    }
+
+    private static final class Day {
+        final long epochDay;
+        final LongAdder orders = new LongAdder();
+        final Totals[] byType = newTotalsByType();
+
+        Day(long epochDay) {
+            this.epochDay = epochDay;
+        }
+    }
+
+    private static final class Totals {
+        final LongAdder lines = new LongAdder();
+        final LongAdder units = new LongAdder();
+        final LongAdder milligrams = new LongAdder();
+        final LongAdder grossMicros = new LongAdder();
+        final LongAdder discountMicros = new LongAdder();
+
+        void add(int quantity, long milligrams, long grossMicros, long discountMicros) {
+            this.lines.increment();
+            this.units.add(quantity);
+            this.milligrams.add(milligrams);
+            this.grossMicros.add(grossMicros);
+            this.discountMicros.add(discountMicros);
+        }
+
+        Sum sum() {
+            return new Sum(lines.sum(), units.sum(), milligrams.sum(), grossMicros.sum(), discountMicros.sum());
+        }
+    }
+
+    private record Sum(long lines, long units, long milligrams, long grossMicros, long discountMicros) {
+        static final Sum ZERO = new Sum(0L, 0L, 0L, 0L, 0L);
+
+        Sum plus(Sum other) {
+            return new Sum(lines + other.lines, units + other.units, milligrams + other.milligrams,
+                    grossMicros + other.grossMicros, discountMicros + other.discountMicros);
+        }
+
+        SalesStats.Totals view() {
+            return new SalesStats.Totals(lines, units, milligrams / 1000.0, Money.toEuros(grossMicros - discountMicros),
+                    Money.toEuros(discountMicros));
+        }
+    }
+}
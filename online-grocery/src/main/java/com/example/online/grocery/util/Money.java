@@ -0,0 +1,48 @@
+package com.example.online.grocery.util;
+
+/**
+ * Money amounts are {@code long} micro-euros (1 € = 1,000,000). Products and percentages are calculated exactly
+ * and rounded half away from zero to whole micro-euros; receipts round to cents the same way.
+ */
+public final class Money {
+    public static final long MICROS_PER_EURO = 1_000_000L;
+    public static final long MICROS_PER_CENT = 10_000L;
+    private static final long MILLIGRAMS_PER_HUNDRED_GRAMS = 100_000L;
+    private static final long BASIS_POINTS = 10_000L;
+
+    private Money() {
+    }
+
+    public static long ofEuros(double euros) {
+        return Math.round(euros * MICROS_PER_EURO);
+    }
+
+    public static double toEuros(long micros) {
+        return (double) micros / MICROS_PER_EURO;
+    }
+
+    public static long milligrams(double grams) {
+        return Math.round(grams * 1000);
+    }
+
+    public static long times(long micros, int quantity) {
+        return Math.multiplyExact(micros, (long) quantity);
+    }
+
+    public static long perHundredGrams(long microsPerHundredGrams, long milligrams) {
+        return divideRounded(Math.multiplyExact(microsPerHundredGrams, milligrams), MILLIGRAMS_PER_HUNDRED_GRAMS);
+    }
+
+    public static long percentage(long micros, int basisPoints) {
+        return divideRounded(Math.multiplyExact(micros, (long) basisPoints), BASIS_POINTS);
+    }
+
+    public static long toCents(long micros) {
+        return divideRounded(micros, MICROS_PER_CENT);
+    }
+
+    static long divideRounded(long dividend, long divisor) {
+        long half = divisor / 2;
+        return dividend >= 0 ? (dividend + half) / divisor : -((-dividend + half) / divisor);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.online.grocery.config;
+
+import com.example.online.grocery.dto.OrderRequestDeserializer;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.OrderItem;
+import com.example.online.grocery.service.ItemCatalog;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"spring.profiles.active=fast-start", "spring.datasource.url=jdbc:h2:mem:faststart"})
+public class StartupConfigTest {
+    @Autowired
+    ConfigurableApplicationContext context;
+
+    @Autowired
+    ItemCatalog itemCatalog;
+
+    @Test
+    void fastStartShouldKeepPricingMetricsEagerAndCreateControllersOnFirstUse() {
+        assertTrue(context.getBeanFactory().containsSingleton("pricingMetrics"));
+        assertFalse(context.getBeanFactory().containsSingleton("orderController"));
+        assertNotNull(context.getBean("orderController"));
+    }
+
+    @Test
+    void seededCatalogShouldHoldTheDefaultItems() {
+        Map<String, Double> prices = Map.of("bread", 1.0, "vegetable", 1.0, "Dutch beer", 0.5, "German beer", 1.0, "Belgium beer", 0.75);
+        assertEquals(prices.size(), itemCatalog.snapshot().getItems().size());
+        prices.forEach((name, price) -> assertEquals(price, itemCatalog.snapshot().findByName(name).orElseThrow().getUnitPrice()));
+    }
+
+    @Test
+    void entitiesShouldBeRegisteredForReflection() {
+        RuntimeHints hints = new RuntimeHints();
+        new StartupConfig.EntityHints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Item.class)
+                .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(OrderItem.class)
+                .withMemberCategory(MemberCategory.DECLARED_FIELDS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(OrderRequestDeserializer.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.online.grocery.controller;
+
+import com.example.online.grocery.dto.CatalogView;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.PromotionRule;
+import com.example.online.grocery.service.CatalogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(CatalogController.class)
+public class CatalogControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    CatalogService catalogService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void testGetPromotionRules() throws Exception {
+        Mockito.when(catalogService.getPromotionRules()).thenReturn(List.of(PromotionRule.pack(Item.ProductType.DUTCH_BEER, 6, 2.0)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/promotion_rules"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].productType").value("DUTCH_BEER"))
+                .andExpect(jsonPath("$[0].kind").value("PACK"))
+                .andExpect(jsonPath("$[0].packSize").value(6))
+                .andExpect(jsonPath("$[0].amountPerPack").value(2.0));
+    }
+
+    @Test
+    void givenValidRulesOnPutRulesShouldBeReplaced() throws Exception {
+        List<PromotionRule> rules = List.of(PromotionRule.pack(Item.ProductType.GERMAN_BEER, 4, 2.5));
+        Mockito.when(catalogService.replacePromotionRules(any())).thenReturn(rules);
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/promotion_rules")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(rules)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].productType").value("GERMAN_BEER"))
+                .andExpect(jsonPath("$[0].amountPerPack").value(2.5));
+    }
+
+    @Test
+    void givenInvalidRulesOnPutBadRequestShouldBeReturned() throws Exception {
+        Mockito.when(catalogService.replacePromotionRules(any())).thenThrow(new IllegalArgumentException("Pack discount for GERMAN_BEER needs a positive pack size and a non negative amount."));
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/promotion_rules")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(List.of(PromotionRule.pack(Item.ProductType.GERMAN_BEER, 0, 2.5)))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSearchItems() throws Exception {
+        Mockito.when(catalogService.searchItems("bre", 10)).thenReturn(List.of(new Item("bread", 1.0, Item.ProductType.BREAD)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/items/search").param("q", "bre"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("bread"))
+                .andExpect(jsonPath("$[0].type").value("BREAD"));
+    }
+
+    @Test
+    void givenBlankQueryOnSearchBadRequestShouldBeReturned() throws Exception {
+        Mockito.when(catalogService.searchItems(" ", 5)).thenThrow(new IllegalArgumentException("Search needs a query."));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/items/search").param("q", " ").param("limit", "5"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetCatalog() throws Exception {
+        Mockito.when(catalogService.getCatalog()).thenReturn(new CatalogView(4, List.of(new Item("bread", 1.25, Item.ProductType.BREAD)),
+                List.of(PromotionRule.pack(Item.ProductType.DUTCH_BEER, 6, 2.0))));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/catalog"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(4))
+                .andExpect(jsonPath("$.items[0].name").value("bread"))
+                .andExpect(jsonPath("$.items[0].unitPrice").value(1.25))
+                .andExpect(jsonPath("$.promotionRules[0].kind").value("PACK"));
+    }
+
+    @Test
+    void givenCatalogUpdateOnPutNewVersionShouldBeReturned() throws Exception {
+        Mockito.when(catalogService.updateCatalog(any())).thenReturn(new CatalogView(5, List.of(new Item("bread", 1.25, Item.ProductType.BREAD)), List.of()));
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/catalog")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"items\":[{\"name\":\"bread\",\"unitPrice\":1.25}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(5));
+    }
+
+    @Test
+    void givenInvalidCatalogUpdateOnPutBadRequestShouldBeReturned() throws Exception {
+        Mockito.when(catalogService.updateCatalog(any())).thenThrow(new IllegalArgumentException("New item rye bread needs a type."));
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/catalog")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("{\"items\":[{\"name\":\"rye bread\",\"unitPrice\":1.25}]}"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.online.grocery.controller;
 
 
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.dto.OrderResult;
+import com.example.online.grocery.dto.Receipt;
 import com.example.online.grocery.entity.Order;
 import com.example.online.grocery.entity.OrderItem;
+import com.example.online.grocery.exceptions.IdempotencyKeyReusedException;
 import com.example.online.grocery.exceptions.ItemNotFoundException;
 import com.example.online.grocery.exceptions.NotValidOrderException;
+import com.example.online.grocery.service.IdempotentOrderService;
 import com.example.online.grocery.service.OrderService;
+import com.example.online.grocery.service.OrderStreamService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
@@ -16,15 +22,21 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -36,6 +48,12 @@ public class OrderControllerTest {
     @MockBean
     OrderService orderService;
 
+    @MockBean
+    OrderStreamService orderStreamService;
+
+    @MockBean
+    IdempotentOrderService idempotentOrderService;
+
     @Autowired
     ObjectMapper objectMapper;
     Order order;
@@ -93,26 +111,65 @@ public class OrderControllerTest {
                 Order details:
                 3 x bread (3 days old): €2.00
                 Total: €2.00""";
-        Mockito.when(orderService.processOrder(order)).thenReturn(receipt);
+        Mockito.when(orderService.priceOrder(any())).thenReturn(new Receipt(receipt, 3));
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/place_order")
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(OrderController.CATALOG_VERSION, "3"))
+                .andExpect(jsonPath("$.text").value(receipt))
+                .andExpect(jsonPath("$.catalogVersion").value(3));
+        verify(orderService, times(1)).priceOrder(any());
+
+    }
+    @Test
+    void orderWithIdempotencyKeyShouldBePricedOncePerKey() throws Exception {
+        order = new Order(List.of(new OrderItem("bread", 3, 3)));
+        Mockito.when(idempotentOrderService.processOrder(Mockito.eq("order-1"), any())).thenReturn(new Receipt("Order details:\nTotal: €2.00\n", 1));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/place_order")
+                        .header(OrderController.IDEMPOTENCY_KEY, "order-1")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(order)))
                 .andExpect(status().isOk());
-        verify(orderService,times(1)).processOrder(any());
+        verify(idempotentOrderService, times(1)).processOrder(Mockito.eq("order-1"), any());
+        verify(orderService, times(0)).priceOrder(any());
+    }
 
+    @Test
+    void blankIdempotencyKeyShouldBeRejected() throws Exception {
+        order = new Order(List.of(new OrderItem("bread", 3, 3)));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/place_order")
+                        .header(OrderController.IDEMPOTENCY_KEY, " ")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isBadRequest());
+        verify(idempotentOrderService, times(0)).processOrder(any(), any());
     }
+
+    @Test
+    void reusedIdempotencyKeyShouldBeUnprocessable() throws Exception {
+        order = new Order(List.of(new OrderItem("bread", 3, 3)));
+        Mockito.when(idempotentOrderService.processOrder(Mockito.eq("order-1"), any()))
+                .thenThrow(new IdempotencyKeyReusedException("Idempotency-Key was already used for a different order."));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/place_order")
+                        .header(OrderController.IDEMPOTENCY_KEY, "order-1")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
     @Test
     void givenEmptyOrderOnPostShouldThrowNotValidOrderException() throws Exception {
         order = new Order(Collections.EMPTY_LIST);
         NotValidOrderException notValidOrderException = new NotValidOrderException("No items found in the order hence it is not valid.");
-        Mockito.when(orderService.processOrder(any())).thenThrow(notValidOrderException);
+        Mockito.when(orderService.priceOrder(any())).thenThrow(notValidOrderException);
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/place_order")
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .content(objectMapper.writeValueAsString(order)))
                 .andExpect(status().isBadRequest())
                 .andExpect(result ->
                         assertTrue(Objects.requireNonNull(result.getResolvedException()).getMessage().contains("No items found in the order hence it is not valid.")));
-        verify(orderService,times(1)).processOrder(any());
+        verify(orderService, times(1)).priceOrder(any());
     }
 
     @Test
@@ -121,13 +178,13 @@ public class OrderControllerTest {
         orderItems.add(new OrderItem(" wheat bread", 3, 3));
         order = new Order(orderItems);
         ItemNotFoundException itemNotFoundException = new ItemNotFoundException("Item added is not valid.");
-        Mockito.when(orderService.processOrder(any())).thenThrow(itemNotFoundException);
+        Mockito.when(orderService.priceOrder(any())).thenThrow(itemNotFoundException);
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/place_order")
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .content(objectMapper.writeValueAsString(order)))
                 .andExpect(status().isBadRequest())
                 .andExpect(result -> assertTrue(Objects.requireNonNull(result.getResolvedException()).getMessage().contains("Item added is not valid.")));
-        verify(orderService,times(1)).processOrder(any());
+        verify(orderService, times(1)).priceOrder(any());
     }
 
     @Test
@@ -136,14 +193,83 @@ public class OrderControllerTest {
         orderItems.add(new OrderItem(" wheat bread", 3, 7));
         order = new Order(orderItems);
         IllegalArgumentException illegalArgumentException = new IllegalArgumentException("Bread older than six days can not be added to the order.");
-        Mockito.when(orderService.processOrder(any())).thenThrow(illegalArgumentException);
+        Mockito.when(orderService.priceOrder(any())).thenThrow(illegalArgumentException);
         mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/place_order")
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .content(objectMapper.writeValueAsString(order)))
                 .andExpect(status().isBadRequest())
                 .andExpect(result -> assertTrue(Objects.requireNonNull(result.getResolvedException()).getMessage().contains("Bread older than six days can not be added to the order.")));
-        verify(orderService, times(1)).processOrder(any());
+        verify(orderService, times(1)).priceOrder(any());
+    }
+
+    @Test
+    void givenBatchOfOrdersOnPostReceiptsAndErrorsShouldBeReturnedPerOrder() throws Exception {
+        List<Order> orders = List.of(new Order(List.of(new OrderItem("bread", 3, 3))), new Order(List.of(new OrderItem("bread", 3, 7))));
+        Mockito.when(orderService.processOrders(any())).thenReturn(List.of(
+                OrderResult.receipt(0, new Receipt("Order details:\n3 x bread (3 days old): €2.00\nTotal: €2.00\n", 2)),
+                OrderResult.error(1, "Bread older than six days can not be added to the order.")));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/place_orders")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(orders)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].receipt").value("Order details:\n3 x bread (3 days old): €2.00\nTotal: €2.00\n"))
+                .andExpect(jsonPath("$[0].catalogVersion").value(2))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].catalogVersion").doesNotExist())
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].error").value("Bread older than six days can not be added to the order."));
+        verify(orderService, times(1)).processOrders(any());
     }
 
+    @Test
+    void givenNdjsonBatchOfOrdersOnPostEveryLineShouldBePriced() throws Exception {
+        Order bread = new Order(List.of(new OrderItem("bread", 3, 3)));
+        Order beer = new Order(List.of(new OrderItem("Dutch beer", 6, "Dutch")));
+        String body = objectMapper.writeValueAsString(bread) + "\n" + objectMapper.writeValueAsString(beer) + "\n";
+        Mockito.when(orderService.processOrders(any())).thenAnswer(invocation -> {
+            List<OrderRequest> orders = invocation.getArgument(0);
+            List<OrderResult> results = new ArrayList<>();
+            for (int i = 0; i < orders.size(); i++) {
+                results.add(OrderResult.receipt(i, new Receipt(orders.get(i).orderItems().get(0).name(), 1)));
+            }
+            return results;
+        });
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/place_orders")
+                        .contentType(OrderController.APPLICATION_NDJSON_VALUE)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].receipt").value("bread"))
+                .andExpect(jsonPath("$[1].receipt").value("Dutch beer"));
+    }
 
+    @Test
+    void givenMalformedNdjsonBatchOnPostBadRequestShouldBeReturned() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/place_orders")
+                        .contentType(OrderController.APPLICATION_NDJSON_VALUE)
+                        .content("{\"orderItems\": [\n"))
+                .andExpect(status().isBadRequest());
+        verify(orderService, times(0)).processOrders(any());
+    }
+
+    @Test
+    void givenNdjsonStreamOnPostResultsShouldBeStreamedBack() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"index\":0,\"receipt\":\"Total: 2.00\\n\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(orderStreamService).processOrders(any(), any());
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/place_orders/stream")
+                        .contentType(OrderController.APPLICATION_NDJSON_VALUE)
+                        .accept(OrderController.APPLICATION_NDJSON_VALUE)
+                        .content("{\"orderItems\":[{\"name\":\"bread\",\"quantity\":3,\"age\":3}]}\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(OrderController.APPLICATION_NDJSON_VALUE))
+                .andExpect(content().string("{\"index\":0,\"receipt\":\"Total: 2.00\\n\"}\n"));
+        verify(orderStreamService, times(1)).processOrders(any(), any());
+    }
 }
@@ -0,0 +1,157 @@
+package com.example.online.grocery.controller;
+
+import com.example.online.grocery.dto.OrderPage;
+import com.example.online.grocery.dto.OrderSummary;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.entity.OrderItem;
+import com.example.online.grocery.repository.ItemRepository;
+import com.example.online.grocery.repository.OrderRepository;
+import com.example.online.grocery.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactiveorders",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactiveorders",
+        "grocery.orders.write-behind.flush-interval=20ms"})
+@ActiveProfiles("reactive")
+public class ReactiveOrderControllerTest {
+    @Autowired
+    WebTestClient webTestClient;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @SpyBean
+    OrderService orderService;
+
+    @Test
+    void pricedOrdersShouldBeSavedOverR2dbcAndReadBack() {
+        webTestClient.post().uri("/api/v1/place_order")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"orderItems\":[{\"name\":\"bread\",\"quantity\":3,\"age\":3},{\"name\":\"Dutch beer\",\"quantity\":6,\"origin\":\"Dutch\"}]}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(OrderController.CATALOG_VERSION)
+                .expectBody().jsonPath("$.text").isEqualTo("Order details:\n3 x bread (3 days old): €2.00\n6 x Dutch beer: €1.00\nTotal: €3.00\n");
+
+        OrderSummary saved = awaitOrders(1).get(0);
+        assertEquals(3.0, saved.totalPrice());
+        assertEquals(List.of("bread", "Dutch beer"), saved.orderItems().stream().map(line -> line.name()).toList());
+        assertEquals(2.0, saved.orderItems().get(1).discount());
+    }
+
+    @Test
+    void ordersSavedThroughJpaShouldNotReuseIds() {
+        for (int i = 0; i < 3; i++) {
+            webTestClient.post().uri("/api/v1/place_order")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue("{\"orderItems\":[{\"name\":\"bread\",\"quantity\":1,\"age\":0}]}")
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+        List<Integer> savedIds = awaitOrders(3).stream().map(OrderSummary::orderId).toList();
+        Item bread = itemRepository.findByName("bread").orElseThrow();
+        OrderItem line = new OrderItem("bread", 1, 0);
+        line.setItem(bread);
+        Order order = new Order(new ArrayList<>(List.of(line)));
+        line.setOrder(order);
+        order.setPlacedAt(Instant.now());
+        transactionTemplate.executeWithoutResult(status -> orderRepository.save(order));
+
+        assertFalse(savedIds.contains(order.getOrderId()));
+        assertTrue(orderRepository.existsById(order.getOrderId()));
+    }
+
+    @Test
+    void unreadableOrderShouldEndTheStreamWithAnError() {
+        String results = webTestClient.post().uri("/api/v1/place_orders/stream")
+                .contentType(MediaType.parseMediaType(OrderController.APPLICATION_NDJSON_VALUE))
+                .bodyValue("{\"orderItems\":[{\"name\":\"bread\",\"quantity\":1,\"age\":0}]}\n{\"orderItems\":[{\"name\":\"carrot\",\"quantity\":1}]}\n{\"orderItems\":[{\"name\":\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        String[] lines = results.split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"receipt\""));
+        assertTrue(lines[1].contains("Item added is not valid."));
+        assertTrue(lines[2].startsWith("{\"index\":2,\"error\":\"Order could not be read"));
+    }
+
+    @Test
+    void ordersShouldBePricedOffTheEventLoop() {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(orderService).priceOrder(any());
+        Mockito.doAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(orderService).processOrderInBatch(anyInt(), any(), any());
+        String order = "{\"orderItems\":[{\"name\":\"bread\",\"quantity\":1,\"age\":0}]}";
+
+        webTestClient.post().uri("/api/v1/place_order")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(order)
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.post().uri("/api/v1/place_order")
+                .header(OrderController.IDEMPOTENCY_KEY, "off-the-loop")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(order)
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.post().uri("/api/v1/place_orders/stream")
+                .contentType(MediaType.parseMediaType(OrderController.APPLICATION_NDJSON_VALUE))
+                .bodyValue(order + "\n" + order + "\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult();
+
+        assertEquals(4, threads.size());
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("pricing-")), threads::toString);
+    }
+
+    @Test
+    void invalidPageRequestsShouldBeRejected() {
+        webTestClient.get().uri("/api/v1/orders?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private List<OrderSummary> awaitOrders(int atLeast) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (true) {
+            OrderPage page = webTestClient.get().uri("/api/v1/orders?limit=500")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(OrderPage.class).returnResult().getResponseBody();
+            if (page.orders().size() >= atLeast || System.nanoTime() > deadline) {
+                return page.orders();
+            }
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.online.grocery.discount;
+
+import com.example.online.grocery.BootStrapInitialData;
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.PromotionRule;
+import com.example.online.grocery.util.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiscountRuleCompilerTest {
+
+    DiscountEvaluator[] evaluators = DiscountRuleCompiler.compile(BootStrapInitialData.defaultPromotionRules());
+
+    @Test
+    void productTypesWithoutRulesShouldGetNoDiscount() {
+        OrderRequest.Line beer = new OrderRequest.Line("beer", 12, null, "Dutch", 0.0);
+        assertSame(DiscountEvaluator.NONE, evaluators[Item.ProductType.BEER.ordinal()]);
+        assertEquals(0L, evaluators[Item.ProductType.BEER.ordinal()].discount(beer, Money.ofEuros(0.5)));
+    }
+
+    @Test
+    void breadTiersShouldGiveItemsFreeByAge() {
+        DiscountEvaluator bread = evaluators[Item.ProductType.BREAD.ordinal()];
+        assertEquals(0L, bread.discount(new OrderRequest.Line("bread", 3, 1, null, 0.0), Money.ofEuros(1.0)));
+        assertEquals(1_000_000L, bread.discount(new OrderRequest.Line("bread", 3, 3, null, 0.0), Money.ofEuros(1.0)));
+        assertEquals(4_000_000L, bread.discount(new OrderRequest.Line("bread", 7, 6, null, 0.0), Money.ofEuros(1.0)));
+        assertThrows(IllegalArgumentException.class, () -> bread.discount(new OrderRequest.Line("bread", 3, 7, null, 0.0), Money.ofEuros(1.0)));
+        assertThrows(IllegalArgumentException.class, () -> bread.discount(new OrderRequest.Line("bread", 3, null, null, 0.0), Money.ofEuros(1.0)));
+        assertThrows(ArithmeticException.class, () -> bread.discount(new OrderRequest.Line("bread", 7, 6, null, 0.0), Long.MAX_VALUE / 2));
+    }
+
+    @Test
+    void vegetableTiersShouldApplyPercentageByWeight() {
+        DiscountEvaluator vegetable = evaluators[Item.ProductType.VEGETABLE.ordinal()];
+        assertEquals(50_000L, vegetable.discount(new OrderRequest.Line("vegetable", 0, null, null, 100.0), Money.ofEuros(1.0)));
+        assertEquals(350_000L, vegetable.discount(new OrderRequest.Line("vegetable", 0, null, null, 500.0), Money.ofEuros(1.0)));
+        assertEquals(501_000L, vegetable.discount(new OrderRequest.Line("vegetable", 0, null, null, 501.0), Money.ofEuros(1.0)));
+    }
+
+    @Test
+    void packRuleShouldGiveAmountPerFullPack() {
+        DiscountEvaluator germanBeer = evaluators[Item.ProductType.GERMAN_BEER.ordinal()];
+        assertEquals(0L, germanBeer.discount(new OrderRequest.Line("German beer", 5, null, "German", 0.0), Money.ofEuros(1.0)));
+        assertEquals(8_000_000L, germanBeer.discount(new OrderRequest.Line("German beer", 13, null, "German", 0.0), Money.ofEuros(1.0)));
+    }
+
+    @Test
+    void changedRulesShouldBeCompiledWithoutCodeChanges() {
+        DiscountEvaluator[] promotion = DiscountRuleCompiler.compile(List.of(PromotionRule.pack(Item.ProductType.DUTCH_BEER, 4, 1.5)));
+        assertEquals(3_000_000L, promotion[Item.ProductType.DUTCH_BEER.ordinal()].discount(new OrderRequest.Line("Dutch beer", 8, null, "Dutch", 0.0), Money.ofEuros(0.5)));
+        assertSame(DiscountEvaluator.NONE, promotion[Item.ProductType.BREAD.ordinal()]);
+    }
+
+    @Test
+    void vegetableDiscountShouldKeepFractionsOfACent() {
+        DiscountEvaluator vegetable = evaluators[Item.ProductType.VEGETABLE.ordinal()];
+        assertEquals(4_500L, vegetable.discount(new OrderRequest.Line("vegetable", 0, null, null, 90.0), Money.ofEuros(0.1)));
+        assertEquals(33_300L, vegetable.discount(new OrderRequest.Line("vegetable", 0, null, null, 33.3), Money.ofEuros(2.0)));
+    }
+
+    @Test
+    void invalidRulesShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> DiscountRuleCompiler.compile(List.of(PromotionRule.pack(Item.ProductType.DUTCH_BEER, 0, 1.0))));
+        assertThrows(IllegalArgumentException.class, () -> DiscountRuleCompiler.compile(List.of(
+                PromotionRule.pack(Item.ProductType.DUTCH_BEER, 6, 1.0),
+                PromotionRule.weightTier(Item.ProductType.DUTCH_BEER, 100.0, 500))));
+        assertThrows(IllegalArgumentException.class, () -> DiscountRuleCompiler.compile(List.of(
+                PromotionRule.weightTier(Item.ProductType.VEGETABLE, 100.0, 500),
+                PromotionRule.weightTier(Item.ProductType.VEGETABLE, 100.0, 700))));
+        assertThrows(IllegalArgumentException.class, () -> DiscountRuleCompiler.compile(List.of(PromotionRule.ageTier(Item.ProductType.BREAD, 3.0, 2, 3))));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.online.grocery.dto;
+
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.entity.OrderItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderRequestDeserializerTest {
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void orderShouldBeReadLineByLine() throws Exception {
+        OrderRequest request = objectMapper.readValue("""
+                {"orderItems": [
+                    {"name": "bread", "quantity": 3, "age": 3},
+                    {"name": "vegetable", "weight": 200.50},
+                    {"name": "Dutch beer", "quantity": "6", "origin": "Dutch", "age": null}
+                ]}""", OrderRequest.class);
+
+        assertEquals(List.of(new OrderRequest.Line("bread", 3, 3, null, 0.0),
+                new OrderRequest.Line("vegetable", 0, null, null, 200.5),
+                new OrderRequest.Line("Dutch beer", 6, null, "Dutch", 0.0)), request.orderItems());
+    }
+
+    @Test
+    void fieldsOfSerializedEntitiesShouldBeSkipped() throws Exception {
+        OrderItem line = new OrderItem("bread", 3, 3);
+        line.setPriceMicros(1_000_000L);
+        String json = objectMapper.writeValueAsString(new Order(List.of(line)));
+
+        OrderRequest request = objectMapper.readValue(json, OrderRequest.class);
+
+        assertEquals(List.of(new OrderRequest.Line("bread", 3, 3, null, 0.0)), request.orderItems());
+    }
+
+    @Test
+    void missingOrNullLinesShouldBeKeptAsNull() throws Exception {
+        assertNull(objectMapper.readValue("{}", OrderRequest.class).orderItems());
+        assertNull(objectMapper.readValue("{\"orderItems\":null}", OrderRequest.class).orderItems());
+        assertNull(objectMapper.readValue("null", OrderRequest.class));
+        assertEquals(List.of(), objectMapper.readValue("{\"orderItems\":[]}", OrderRequest.class).orderItems());
+    }
+
+    @Test
+    void malformedOrdersShouldBeRejected() {
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue("[]", OrderRequest.class));
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue("{\"orderItems\":{}}", OrderRequest.class));
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue("{\"orderItems\":[1]}", OrderRequest.class));
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue("{\"orderItems\":[{\"name\":[]}]}", OrderRequest.class));
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue("{\"orderItems\":[{\"quantity\":\"six\"}]}", OrderRequest.class));
+    }
+}
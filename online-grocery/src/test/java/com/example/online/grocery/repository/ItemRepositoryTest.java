@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import java.util.Optional;
 @DataJpaTest
 public class ItemRepositoryTest {
@@ -29,4 +30,10 @@ public class ItemRepositoryTest {
         Optional<Item> actualItemOptional =itemRepository.findByName("carrot");
         Assertions.assertFalse(actualItemOptional.isPresent());
     }
+    @Test
+    void shouldRejectASecondItemWithTheSameName(){
+        itemRepository.save(new Item("vegetable",1.0, Item.ProductType.VEGETABLE));
+        Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> itemRepository.saveAndFlush(new Item("vegetable",2.0, Item.ProductType.VEGETABLE)));
+    }
 }
@@ -0,0 +1,204 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.BootStrapInitialData;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.dto.CatalogUpdate;
+import com.example.online.grocery.entity.CatalogVersion;
+import com.example.online.grocery.entity.PromotionRule;
+import com.example.online.grocery.repository.CatalogVersionRepository;
+import com.example.online.grocery.repository.ItemRepository;
+import com.example.online.grocery.repository.PromotionRuleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogEventLogTest {
+    @TempDir
+    Path directory;
+
+    CatalogSnapshot seeded = new CatalogSnapshot(List.of(
+            item(1, "bread", Item.ProductType.BREAD, 1_000_000L),
+            item(2, "vegetable", Item.ProductType.VEGETABLE, 1_000_000L),
+            item(4, "Dutch beer", Item.ProductType.DUTCH_BEER, 500_000L)),
+            BootStrapInitialData.defaultPromotionRules()).withVersion(1);
+
+    @Test
+    void restartShouldReplayChangesAfterTheSnapshot() throws IOException {
+        CatalogEventLog eventLog = new CatalogEventLog(directory, 100);
+        assertTrue(eventLog.recover().isEmpty());
+        eventLog.snapshot(seeded);
+        CatalogSnapshot published = seeded;
+        published = appendAndApply(eventLog, published, new CatalogEvent(2, false,
+                List.of(item(1, "bread", Item.ProductType.BREAD, 1_250_000L)), Set.of(), List.of()));
+        published = appendAndApply(eventLog, published, new CatalogEvent(3, false,
+                List.of(item(7, "rye bread", Item.ProductType.BREAD, 2_000_000L)),
+                EnumSet.of(Item.ProductType.DUTCH_BEER), List.of(PromotionRule.pack(Item.ProductType.DUTCH_BEER, 3, 0.5))));
+        eventLog.close();
+
+        CatalogSnapshot recovered = new CatalogEventLog(directory, 100).recover().orElseThrow();
+
+        assertEquals(3, recovered.getVersion());
+        assertSameCatalog(published, recovered);
+        assertEquals(1_250_000L, recovered.findByName("bread").orElseThrow().getUnitPriceMicros());
+        assertEquals(7, recovered.findByName("rye bread").orElseThrow().getItemId());
+        assertEquals(1, recovered.getPromotionRules().stream().filter(rule -> rule.getProductType() == Item.ProductType.DUTCH_BEER).count());
+        assertEquals(500_000L, recovered.getPromotionRules().stream()
+                .filter(rule -> rule.getProductType() == Item.ProductType.DUTCH_BEER).findFirst().orElseThrow().getAmountPerPackMicros());
+    }
+
+    @Test
+    void tornRecordShouldBeCutOffAndAppendingShouldContinueAfterTheLastCompleteOne() throws IOException {
+        CatalogEventLog eventLog = new CatalogEventLog(directory, 100);
+        eventLog.recover();
+        eventLog.snapshot(seeded);
+        eventLog.append(new CatalogEvent(2, false, List.of(item(1, "bread", Item.ProductType.BREAD, 1_250_000L)), Set.of(), List.of()));
+        eventLog.close();
+        long complete = Files.size(directory.resolve(CatalogEventLog.LOG_FILE));
+        Files.write(directory.resolve(CatalogEventLog.LOG_FILE), new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        CatalogEventLog restarted = new CatalogEventLog(directory, 100);
+        assertEquals(2, restarted.recover().orElseThrow().getVersion());
+        assertEquals(complete, Files.size(directory.resolve(CatalogEventLog.LOG_FILE)));
+        restarted.append(new CatalogEvent(3, false, List.of(item(1, "bread", Item.ProductType.BREAD, 1_500_000L)), Set.of(), List.of()));
+        restarted.close();
+
+        CatalogSnapshot recovered = new CatalogEventLog(directory, 100).recover().orElseThrow();
+        assertEquals(3, recovered.getVersion());
+        assertEquals(1_500_000L, recovered.findByName("bread").orElseThrow().getUnitPriceMicros());
+    }
+
+    @Test
+    void snapshotShouldCompactTheLog() throws IOException {
+        CatalogEventLog eventLog = new CatalogEventLog(directory, 2);
+        eventLog.recover();
+        eventLog.snapshot(seeded);
+        CatalogSnapshot published = appendAndApply(eventLog, seeded, new CatalogEvent(2, false,
+                List.of(item(2, "vegetable", Item.ProductType.VEGETABLE, 900_000L)), Set.of(), List.of()));
+        assertFalse(eventLog.snapshotDue());
+        published = appendAndApply(eventLog, published, new CatalogEvent(3, false,
+                List.of(item(2, "vegetable", Item.ProductType.VEGETABLE, 800_000L)), Set.of(), List.of()));
+        assertTrue(eventLog.snapshotDue());
+
+        eventLog.snapshot(published);
+
+        assertFalse(eventLog.snapshotDue());
+        assertEquals(0, Files.size(directory.resolve(CatalogEventLog.LOG_FILE)));
+        eventLog.close();
+        CatalogSnapshot recovered = new CatalogEventLog(directory, 2).recover().orElseThrow();
+        assertEquals(3, recovered.getVersion());
+        assertSameCatalog(published, recovered);
+    }
+
+    @Test
+    void changeWhoseCommitFailsShouldNotBeLogged() throws IOException {
+        CatalogEventLog eventLog = new CatalogEventLog(directory, 100);
+        eventLog.recover();
+        eventLog.snapshot(seeded);
+        ItemRepository itemRepository = Mockito.mock(ItemRepository.class);
+        Mockito.when(itemRepository.findAll()).thenReturn(seeded.getItems());
+        Mockito.when(itemRepository.saveAll(Mockito.anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        Mockito.when(transactionManager.getTransaction(Mockito.any())).thenReturn(new SimpleTransactionStatus());
+        Mockito.doThrow(new TransactionSystemException("commit failed")).when(transactionManager).commit(Mockito.any());
+        ItemCatalog itemCatalog = new ItemCatalog(itemRepository, Mockito.mock(PromotionRuleRepository.class));
+        itemCatalog.install(seeded);
+        CatalogService catalogService = new CatalogService(itemRepository, Mockito.mock(PromotionRuleRepository.class),
+                Mockito.mock(CatalogVersionRepository.class), itemCatalog,
+                new TransactionTemplate(transactionManager), eventLog);
+
+        assertThrows(TransactionSystemException.class, () -> catalogService.updateCatalog(new CatalogUpdate(
+                List.of(new CatalogUpdate.ItemUpdate("rye bread", Item.ProductType.BREAD, 2.0, null)), List.of())));
+        eventLog.close();
+
+        assertSame(seeded, itemCatalog.snapshot());
+        assertEquals(0, Files.size(directory.resolve(CatalogEventLog.LOG_FILE)));
+        CatalogSnapshot recovered = new CatalogEventLog(directory, 100).recover().orElseThrow();
+        assertEquals(1, recovered.getVersion());
+        assertTrue(recovered.findByName("rye bread").isEmpty());
+    }
+
+    @Test
+    void logBehindTheDatabaseShouldBeReplacedByTheCatalogInTheDatabase() throws IOException {
+        CatalogEventLog eventLog = new CatalogEventLog(directory, 100);
+        eventLog.recover();
+        eventLog.snapshot(seeded);
+        eventLog.close();
+        ItemRepository itemRepository = Mockito.mock(ItemRepository.class);
+        Mockito.when(itemRepository.count()).thenReturn(3L);
+        Mockito.when(itemRepository.findAll()).thenReturn(List.of(
+                item(1, "bread", Item.ProductType.BREAD, 1_250_000L),
+                item(2, "vegetable", Item.ProductType.VEGETABLE, 1_000_000L),
+                item(4, "Dutch beer", Item.ProductType.DUTCH_BEER, 500_000L)));
+        PromotionRuleRepository promotionRuleRepository = Mockito.mock(PromotionRuleRepository.class);
+        Mockito.when(promotionRuleRepository.findAll()).thenReturn(BootStrapInitialData.defaultPromotionRules());
+        CatalogVersionRepository catalogVersionRepository = Mockito.mock(CatalogVersionRepository.class);
+        Mockito.when(catalogVersionRepository.findById(CatalogVersion.ID)).thenReturn(Optional.of(new CatalogVersion(2)));
+        ItemCatalog itemCatalog = new ItemCatalog(itemRepository, promotionRuleRepository);
+        CatalogEventLog restarted = new CatalogEventLog(directory, 100);
+
+        new BootStrapInitialData(itemRepository, promotionRuleRepository, catalogVersionRepository, itemCatalog, restarted).run();
+        restarted.close();
+
+        assertEquals(2, itemCatalog.snapshot().getVersion());
+        assertEquals(1_250_000L, itemCatalog.snapshot().findByName("bread").orElseThrow().getUnitPriceMicros());
+        CatalogSnapshot recovered = new CatalogEventLog(directory, 100).recover().orElseThrow();
+        assertEquals(2, recovered.getVersion());
+        assertEquals(1_250_000L, recovered.findByName("bread").orElseThrow().getUnitPriceMicros());
+    }
+
+    @Test
+    void logShouldBeOffWithoutADirectory() {
+        CatalogEventLog eventLog = new CatalogEventLog("", 100);
+        assertFalse(eventLog.isEnabled());
+        assertTrue(eventLog.recover().isEmpty());
+        eventLog.snapshot(seeded);
+        assertFalse(eventLog.snapshotDue());
+    }
+
+    private static CatalogSnapshot appendAndApply(CatalogEventLog eventLog, CatalogSnapshot catalog, CatalogEvent event) {
+        eventLog.append(event);
+        return event.applyTo(catalog);
+    }
+
+    private static void assertSameCatalog(CatalogSnapshot expected, CatalogSnapshot actual) {
+        assertEquals(expected.getItems().size(), actual.getItems().size());
+        for (Item item : expected.getItems()) {
+            Item recovered = actual.findByName(item.getName()).orElseThrow();
+            assertEquals(item.getItemId(), recovered.getItemId());
+            assertEquals(item.getType(), recovered.getType());
+            assertEquals(item.getUnitPriceMicros(), recovered.getUnitPriceMicros());
+            assertEquals(item.getDiscountRule(), recovered.getDiscountRule());
+        }
+        assertEquals(expected.getPromotionRules().size(), actual.getPromotionRules().size());
+        for (int i = 0; i < expected.getPromotionRules().size(); i++) {
+            PromotionRule rule = expected.getPromotionRules().get(i);
+            PromotionRule recovered = actual.getPromotionRules().get(i);
+            assertEquals(rule.getProductType(), recovered.getProductType());
+            assertEquals(rule.getKind(), recovered.getKind());
+            assertEquals(rule.getUpTo(), recovered.getUpTo());
+            assertEquals(rule.getAmountPerPackMicros(), recovered.getAmountPerPackMicros());
+            assertEquals(rule.getMessage(), recovered.getMessage());
+        }
+    }
+
+    private static Item item(int itemId, String name, Item.ProductType type, long unitPriceMicros) {
+        Item item = new Item(itemId, name, type, 0.0, "rule of " + name);
+        item.setUnitPriceMicros(unitPriceMicros);
+        return item;
+    }
+}
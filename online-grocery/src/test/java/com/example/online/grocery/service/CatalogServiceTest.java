@@ -0,0 +1,106 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.BootStrapInitialData;
+import com.example.online.grocery.dto.CatalogUpdate;
+import com.example.online.grocery.dto.CatalogView;
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.dto.Receipt;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.entity.OrderItem;
+import com.example.online.grocery.entity.PromotionRule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+public class CatalogServiceTest {
+    @Autowired
+    CatalogService catalogService;
+    @Autowired
+    OrderService orderService;
+
+    @AfterEach
+    void restoreDefaultCatalog() {
+        catalogService.updateCatalog(new CatalogUpdate(List.of(new CatalogUpdate.ItemUpdate("bread", null, 1.0, null)),
+                BootStrapInitialData.defaultPromotionRules()));
+    }
+
+    @Test
+    void replacedPromotionRulesShouldBeUsedForPricingWithoutRestart() {
+        assertEquals("Order details:\n6 x Dutch beer: €1.00\nTotal: €1.00\n", orderService.processOrder(dutchBeerOrder()));
+
+        catalogService.replacePromotionRules(List.of(PromotionRule.pack(Item.ProductType.DUTCH_BEER, 3, 0.5)));
+
+        assertEquals("Order details:\n6 x Dutch beer: €2.00\nTotal: €2.00\n", orderService.processOrder(dutchBeerOrder()));
+        assertEquals(1, catalogService.getPromotionRules().stream().filter(rule -> rule.getProductType() == Item.ProductType.DUTCH_BEER).count());
+        assertEquals(BootStrapInitialData.defaultPromotionRules().size(), catalogService.getPromotionRules().size());
+    }
+
+    @Test
+    void catalogUpdateShouldPublishOneNewVersion() {
+        Receipt before = orderService.priceOrder(breadOrder("bread"));
+        assertEquals("Order details:\n3 x bread (3 days old): €2.00\nTotal: €2.00\n", before.text());
+
+        CatalogView updated = catalogService.updateCatalog(new CatalogUpdate(
+                List.of(new CatalogUpdate.ItemUpdate("bread", null, 1.5, null), new CatalogUpdate.ItemUpdate("rye bread", Item.ProductType.BREAD, 2.0, "rye bread rule")),
+                List.of(PromotionRule.ageTier(Item.ProductType.BREAD, 6.0, 3, 1), PromotionRule.maxAge(Item.ProductType.BREAD, 6.0, "Too old."))));
+
+        assertEquals(before.catalogVersion() + 1, updated.version());
+        assertEquals(updated.version(), catalogService.getCatalog().version());
+        Receipt after = orderService.priceOrder(breadOrder("bread"));
+        assertEquals("Order details:\n3 x bread (3 days old): €3.00\nTotal: €3.00\n", after.text());
+        assertEquals(updated.version(), after.catalogVersion());
+        assertEquals("Order details:\n3 x rye bread: €4.00\nTotal: €4.00\n", orderService.priceOrder(breadOrder("rye bread")).text());
+    }
+
+    @Test
+    void breadWithoutAgeShouldBeRejectedWhateverItsRules() {
+        catalogService.replacePromotionRules(List.of(PromotionRule.pack(Item.ProductType.BREAD, 6, 0.5)));
+
+        OrderRequest order = new OrderRequest(List.of(new OrderRequest.Line("bread", 3, null, null, 0.0)));
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> orderService.priceOrder(order));
+        assertEquals("The age in days must be given for bread.", ex.getMessage());
+    }
+
+    @Test
+    void searchShouldFindItemsAddedByACatalogUpdate() {
+        catalogService.updateCatalog(new CatalogUpdate(List.of(new CatalogUpdate.ItemUpdate("rye bread", Item.ProductType.BREAD, 2.0, null)), List.of()));
+
+        assertEquals(List.of("bread", "rye bread"), catalogService.searchItems("Bread", 10).stream().map(Item::getName).toList());
+        assertEquals(List.of("rye bread"), catalogService.searchItems("ry", 10).stream().map(Item::getName).toList());
+        assertThrows(IllegalArgumentException.class, () -> catalogService.searchItems("bread", 0));
+    }
+
+    @Test
+    void invalidCatalogUpdateShouldChangeNothing() {
+        CatalogView before = catalogService.getCatalog();
+        assertThrows(IllegalArgumentException.class, () -> catalogService.updateCatalog(new CatalogUpdate(
+                List.of(new CatalogUpdate.ItemUpdate("bread", null, 2.0, null), new CatalogUpdate.ItemUpdate("spelt", null, 2.0, null)), List.of())));
+        assertThrows(IllegalArgumentException.class, () -> catalogService.updateCatalog(new CatalogUpdate(
+                List.of(new CatalogUpdate.ItemUpdate("bread", null, -1.0, null)), List.of())));
+        assertEquals(before, catalogService.getCatalog());
+    }
+
+    @Test
+    void invalidRulesShouldNotChangeTheCatalog() {
+        List<PromotionRule> before = catalogService.getPromotionRules();
+        assertThrows(IllegalArgumentException.class, () -> catalogService.replacePromotionRules(List.of(PromotionRule.pack(Item.ProductType.DUTCH_BEER, 0, 0.5))));
+        assertEquals(before, catalogService.getPromotionRules());
+    }
+
+    private OrderRequest breadOrder(String name) {
+        return new OrderRequest(List.of(new OrderRequest.Line(name, 3, 3, null, 0.0)));
+    }
+
+    private Order dutchBeerOrder() {
+        return new Order(new ArrayList<>(List.of(new OrderItem("Dutch beer", 6, "Dutch"))));
+    }
+}
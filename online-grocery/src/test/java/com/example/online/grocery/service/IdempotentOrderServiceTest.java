@@ -0,0 +1,138 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.dto.Receipt;
+import com.example.online.grocery.exceptions.IdempotencyKeyReusedException;
+import com.example.online.grocery.exceptions.ItemNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+
+public class IdempotentOrderServiceTest {
+    OrderService orderService = Mockito.mock(OrderService.class);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    IdempotentOrderService idempotentOrderService = new IdempotentOrderService(orderService, registry, 100, Duration.ofMinutes(1));
+
+    @Test
+    void retriedOrderShouldReturnTheFirstReceipt() {
+        Mockito.when(orderService.priceOrder(any())).thenReturn(new Receipt("first", 1), new Receipt("second", 1));
+
+        assertEquals("first", idempotentOrderService.processOrder("key", breadOrder(3)).text());
+        assertEquals("first", idempotentOrderService.processOrder("key", breadOrder(3)).text());
+        assertEquals("second", idempotentOrderService.processOrder("other", breadOrder(3)).text());
+
+        Mockito.verify(orderService, Mockito.times(2)).priceOrder(any());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "idempotency").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void concurrentDuplicatesShouldShareOnePricing() throws Exception {
+        CountDownLatch pricingStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(orderService.priceOrder(any())).thenAnswer(invocation -> {
+            pricingStarted.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return new Receipt("receipt", 1);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Receipt>> receipts = new ArrayList<>();
+            receipts.add(executor.submit(() -> idempotentOrderService.processOrder("key", breadOrder(3))));
+            pricingStarted.await(10, TimeUnit.SECONDS);
+            for (int i = 0; i < 7; i++) {
+                receipts.add(executor.submit(() -> idempotentOrderService.processOrder("key", breadOrder(3))));
+            }
+            release.countDown();
+            for (Future<Receipt> receipt : receipts) {
+                assertEquals("receipt", receipt.get(10, TimeUnit.SECONDS).text());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Mockito.verify(orderService, Mockito.times(1)).priceOrder(any());
+    }
+
+    @Test
+    void failedOrderShouldBePricedAgainOnRetry() {
+        Mockito.when(orderService.priceOrder(any())).thenThrow(new ItemNotFoundException("Item added is not valid.")).thenReturn(new Receipt("receipt", 1));
+
+        assertThrows(ItemNotFoundException.class, () -> idempotentOrderService.processOrder("key", breadOrder(3)));
+        assertEquals("receipt", idempotentOrderService.processOrder("key", breadOrder(3)).text());
+    }
+
+    @Test
+    void keyReusedForADifferentOrderShouldBeRejected() {
+        Mockito.when(orderService.priceOrder(any())).thenReturn(new Receipt("receipt", 1));
+
+        idempotentOrderService.processOrder("key", breadOrder(3));
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotentOrderService.processOrder("key", breadOrder(4)));
+    }
+
+    @Test
+    void keyReusedForAnOrderWithTheSameHashShouldBeRejected() {
+        Mockito.when(orderService.priceOrder(any())).thenReturn(new Receipt("receipt", 1));
+        OrderRequest first = new OrderRequest(List.of(new OrderRequest.Line("Aa", 1, null, null, 0.0)));
+        OrderRequest second = new OrderRequest(List.of(new OrderRequest.Line("BB", 1, null, null, 0.0)));
+        assertEquals(first.hashCode(), second.hashCode());
+
+        idempotentOrderService.processOrder("key", first);
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotentOrderService.processOrder("key", second));
+    }
+
+    @Test
+    void orderFailingWithAnErrorShouldBePricedAgainOnRetry() {
+        Mockito.when(orderService.priceOrder(any())).thenThrow(new StackOverflowError()).thenReturn(new Receipt("receipt", 1));
+
+        assertThrows(StackOverflowError.class, () -> idempotentOrderService.processOrder("key", breadOrder(3)));
+        assertEquals("receipt", idempotentOrderService.processOrder("key", breadOrder(3)).text());
+    }
+
+    @Test
+    void asyncDuplicatesShouldCompleteFromOnePricingWithoutBlocking() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(orderService.priceOrder(any())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return new Receipt("receipt", 1);
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<Receipt> first = idempotentOrderService.priceOrder("key", breadOrder(3), executor);
+            CompletableFuture<Receipt> retry = idempotentOrderService.priceOrder("key", breadOrder(3), executor);
+            CompletableFuture<Receipt> reused = idempotentOrderService.priceOrder("key", breadOrder(4), executor);
+            assertFalse(retry.isDone());
+
+            release.countDown();
+
+            assertEquals("receipt", first.get(10, TimeUnit.SECONDS).text());
+            assertEquals("receipt", retry.get(10, TimeUnit.SECONDS).text());
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> reused.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IdempotencyKeyReusedException.class, ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        Mockito.verify(orderService, Mockito.times(1)).priceOrder(any());
+    }
+
+    private OrderRequest breadOrder(int quantity) {
+        return new OrderRequest(List.of(new OrderRequest.Line("bread", quantity, 3, null, 0.0)));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.entity.Item;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemSearchIndexTest {
+    Item bread = new Item("bread", 1.0, Item.ProductType.BREAD);
+    Item ryeBread = new Item("Rye Bread", 2.0, Item.ProductType.BREAD);
+    Item dutchBeer = new Item("Dutch beer", 0.5, Item.ProductType.DUTCH_BEER);
+    Item pilsner = new Item("pilsner", 0.8, Item.ProductType.DUTCH_BEER);
+    Item vegetable = new Item("vegetable", 1.0, Item.ProductType.VEGETABLE);
+    ItemSearchIndex index = ItemSearchIndex.of(List.of(bread, ryeBread, dutchBeer, pilsner, vegetable));
+
+    @Test
+    void namesShouldRankBeforeWordsAndWordsBeforeProductTypes() {
+        assertEquals(List.of(bread, ryeBread), index.search("bre", 10));
+        assertEquals(List.of(dutchBeer, pilsner), index.search("beer", 10));
+        assertEquals(List.of(dutchBeer, pilsner), index.search("dutch", 10));
+    }
+
+    @Test
+    void searchShouldIgnoreCaseAndSurroundingSpace() {
+        assertEquals(List.of(ryeBread), index.search("  RYE b", 10));
+        assertEquals(List.of(vegetable), index.search("Veg", 10));
+    }
+
+    @Test
+    void searchShouldReturnAtMostTheLimit() {
+        assertEquals(List.of(bread), index.search("b", 1));
+        assertEquals(List.of(), index.search("spelt", 10));
+        assertEquals(List.of(), index.search(" ", 10));
+    }
+
+    @Test
+    void changedItemsShouldReplaceTheItemsOfTheSameName() {
+        Item cheaperBread = new Item("bread", 0.9, Item.ProductType.BREAD);
+        Item spelt = new Item("spelt loaf", 2.5, Item.ProductType.BREAD);
+
+        ItemSearchIndex changed = index.with(List.of(cheaperBread, spelt));
+
+        assertEquals(List.of(cheaperBread, ryeBread, spelt), changed.search("bread", 10));
+        assertEquals(List.of(spelt), changed.search("loaf", 10));
+        assertEquals(List.of(bread, ryeBread), index.search("bread", 10));
+    }
+
+    @Test
+    void indexBuiltFromChangesShouldMatchIndexBuiltAtOnce() {
+        List<Item> items = new ArrayList<>();
+        ItemSearchIndex incremental = ItemSearchIndex.EMPTY;
+        for (int i = 0; i < 500; i++) {
+            Item item = new Item("item " + Integer.toString(i * 7919 % 1000, 36), 1.0, Item.ProductType.values()[i % 6]);
+            items.add(item);
+            incremental = incremental.with(List.of(item));
+        }
+        ItemSearchIndex atOnce = ItemSearchIndex.of(items);
+
+        for (String query : List.of("item", "item 1", "b", "dutch", "z", "beer")) {
+            assertEquals(atOnce.search(query, 50), incremental.search(query, 50), query);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderPage;
+import com.example.online.grocery.dto.OrderSummary;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.entity.OrderItem;
+import com.example.online.grocery.repository.ItemRepository;
+import com.example.online.grocery.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:orderhistory", "spring.jpa.properties.hibernate.generate_statistics=true"})
+public class OrderHistoryServiceTest {
+    static final Instant START = Instant.parse("2024-05-01T10:00:00Z");
+
+    @Autowired
+    OrderHistoryService orderHistoryService;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    void saveOrders() {
+        if (orderRepository.count() > 0) {
+            return;
+        }
+        Item bread = itemRepository.findByName("bread").orElseThrow();
+        Item dutchBeer = itemRepository.findByName("Dutch beer").orElseThrow();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            OrderItem breadLine = new OrderItem("bread", 1 + i, 1);
+            breadLine.setItem(bread);
+            OrderItem beerLine = new OrderItem("Dutch beer", 6, "Dutch");
+            beerLine.setItem(dutchBeer);
+            Order order = new Order(new ArrayList<>(List.of(breadLine, beerLine)));
+            breadLine.setOrder(order);
+            beerLine.setOrder(order);
+            order.setTotalPriceMicros(1_000_000L * (i + 1));
+            // two orders share every placement time, so pages also have to seek by order id
+            order.setPlacedAt(START.plusSeconds(i / 2));
+            orders.add(order);
+        }
+        transactionTemplate.executeWithoutResult(status -> orderRepository.saveAll(orders));
+    }
+
+    @Test
+    void pagesShouldSeekPastTheLastOrderWithTwoQueriesEach() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<OrderSummary> seen = new ArrayList<>();
+        OrderPage page = orderHistoryService.findOrders(null, null, null, null, 3);
+        int pages = 1;
+        while (true) {
+            seen.addAll(page.orders());
+            if (page.next() == null) {
+                break;
+            }
+            statistics.clear();
+            page = orderHistoryService.findOrders(null, null, page.next().placedAt(), page.next().orderId(), 3);
+            assertEquals(2, statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getEntityLoadCount());
+            pages++;
+        }
+
+        assertEquals(3, pages);
+        assertEquals(7, seen.size());
+        assertEquals(7, seen.stream().mapToInt(OrderSummary::orderId).distinct().count());
+        for (int i = 0; i < seen.size(); i++) {
+            OrderSummary order = seen.get(i);
+            assertEquals(START.plusSeconds(i / 2), order.placedAt());
+            assertEquals(i + 1.0, order.totalPrice());
+            assertEquals(2, order.orderItems().size());
+            assertEquals("bread", order.orderItems().get(0).name());
+            assertEquals(i + 1, order.orderItems().get(0).quantity());
+            assertEquals("Dutch", order.orderItems().get(1).origin());
+            if (i > 0) {
+                assertTrue(seen.get(i - 1).orderId() < order.orderId() || seen.get(i - 1).placedAt().isBefore(order.placedAt()));
+            }
+        }
+    }
+
+    @Test
+    void pagesShouldOnlyHoldOrdersPlacedInTheRange() {
+        OrderPage page = orderHistoryService.findOrders(START.plusSeconds(1), START.plusSeconds(3), null, null, 10);
+
+        assertEquals(4, page.orders().size());
+        assertNull(page.next());
+        assertTrue(page.orders().stream().allMatch(order -> !order.placedAt().isBefore(START.plusSeconds(1)) && order.placedAt().isBefore(START.plusSeconds(3))));
+    }
+
+    @Test
+    void invalidPageRequestsShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> orderHistoryService.findOrders(null, null, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> orderHistoryService.findOrders(null, null, null, null, OrderHistoryService.MAX_PAGE_SIZE + 1));
+        assertThrows(IllegalArgumentException.class, () -> orderHistoryService.findOrders(null, null, START, null, 10));
+    }
+
+    @Test
+    void exportShouldWriteEveryOrderInTheRangeAsOneLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        orderHistoryService.exportOrders(START.plusSeconds(1), null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, lines.length);
+        List<OrderSummary> page = orderHistoryService.findOrders(START.plusSeconds(1), null, null, null, 10).orders();
+        for (int i = 0; i < lines.length; i++) {
+            OrderSummary exported = objectMapper.readValue(lines[i], OrderSummary.class);
+            assertEquals(page.get(i), exported);
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package com.example.online.grocery.service;
 
+import com.example.online.grocery.BootStrapInitialData;
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.dto.OrderResult;
+import com.example.online.grocery.dto.Receipt;
 import com.example.online.grocery.entity.Item;
 import com.example.online.grocery.entity.Order;
 import com.example.online.grocery.entity.OrderItem;
+import com.example.online.grocery.exceptions.ItemNotFoundException;
 import com.example.online.grocery.exceptions.NotValidOrderException;
 import com.example.online.grocery.repository.ItemRepository;
+import com.example.online.grocery.repository.PromotionRuleRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -17,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class OrderServiceTest {
     ItemRepository itemRepository;
+    PromotionRuleRepository promotionRuleRepository;
     Item bread;
     Item vegetable;
     Item dutch_Beer;
@@ -26,6 +33,7 @@ public class OrderServiceTest {
     OrderItem orderItem2 = Mockito.mock(OrderItem.class);
     OrderItem orderItem3 = Mockito.mock(OrderItem.class);
     List<OrderItem> orderItems = new ArrayList<>();
+    ItemCatalog itemCatalog;
     OrderService orderService;
     Order order;
    List<Item> items;
@@ -35,12 +43,17 @@ public class OrderServiceTest {
         @BeforeEach
         void setup() {
             itemRepository = Mockito.mock(ItemRepository.class);
+            promotionRuleRepository = Mockito.mock(PromotionRuleRepository.class);
+            Mockito.when(promotionRuleRepository.findAll()).thenReturn(BootStrapInitialData.defaultPromotionRules());
             bread = new Item("bread", 1.0, Item.ProductType.BREAD);
             vegetable = new Item("vegetable", 1.0, Item.ProductType.VEGETABLE);
             dutch_Beer = new Item("Dutch beer", 0.50, Item.ProductType.DUTCH_BEER);
             german_Beer = new Item("German beer", 1.0, Item.ProductType.GERMAN_BEER);
             belgium_Beer = new Item("Belgium beer", 0.75, Item.ProductType.BELGIUM_BEER);
-            orderService = new OrderService(itemRepository);
+            Mockito.when(itemRepository.findAll()).thenReturn(List.of(bread, vegetable, dutch_Beer, german_Beer, belgium_Beer));
+            itemCatalog = new ItemCatalog(itemRepository, promotionRuleRepository);
+            itemCatalog.reload();
+            orderService = new OrderService(itemCatalog);
             order = new Order(orderItems);
         }
 
@@ -50,11 +63,98 @@ public class OrderServiceTest {
             assertThrows(NotValidOrderException.class, () -> orderService.processOrder(order));
         }
 
+        @Test
+        void givenUnknownItemShouldThrowItemNotFoundException() {
+            orderItems.add(new OrderItem("wheat bread", 3, 1));
+            assertThrows(ItemNotFoundException.class, () -> orderService.processOrder(order));
+        }
+
+        @Test
+        void givenBreadWithoutAgeShouldThrowIllegalArgumentException() {
+            OrderRequest order = new OrderRequest(List.of(new OrderRequest.Line("bread", 3, null, null, 0.0)));
+            IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> orderService.priceOrder(order));
+            assertEquals("The age in days must be given for bread.", ex.getMessage());
+        }
+
+        @Test
+        void pricingShouldReadFromCatalogSnapshotWithoutRepositoryLookups() {
+            orderItems.add(new OrderItem("bread", 3, 3));
+            orderItems.add(new OrderItem("vegetable", 200.0));
+            orderService.processOrder(order);
+            Mockito.verify(itemRepository, Mockito.times(1)).findAll();
+            Mockito.verifyNoMoreInteractions(itemRepository);
+        }
+
+        @Test
+        void processingAnOrderShouldNotChangeTheItemsOfTheOrderPlaced() {
+            OrderItem vegetable1 = new OrderItem("vegetable", 300.0);
+            OrderItem dutchBeer = new OrderItem("Dutch beer", 6, "Dutch");
+            OrderItem vegetable2 = new OrderItem("vegetable", 200.0);
+            orderItems.add(vegetable1);
+            orderItems.add(dutchBeer);
+            orderItems.add(vegetable2);
+            orderService.processOrder(order);
+            assertEquals(List.of(vegetable1, dutchBeer, vegetable2), order.getOrderItems());
+        }
+
+        @Test
+        void combinedItemsShouldFollowTheItemsThatAreNotCombined() {
+            orderItems.add(new OrderItem("Belgium beer", 4, "Belgium"));
+            orderItems.add(new OrderItem("vegetable", 50.0));
+            orderItems.add(new OrderItem("German beer", 3, "German"));
+            orderItems.add(new OrderItem("bread", 2, 0));
+            orderItems.add(new OrderItem("Belgium beer", 2, "Belgium"));
+            orderItems.add(new OrderItem("German beer", 2, "German"));
+            orderItems.add(new OrderItem("Dutch beer", 6, "Dutch"));
+            orderItems.add(new OrderItem("vegetable", 50.0));
+            String actualReceipt = orderService.processOrder(order);
+            String expectedReceipt = """
+                    Order details:
+                    3 x German beer: €3.00
+                    2 x bread (0 days old): €2.00
+                    2 x German beer: €2.00
+                    100.0 g x vegetable: €0.95
+                    6 x Dutch beer: €1.00
+                    6 x Belgium beer: €1.50
+                    Total: €10.45
+                    """;
+            assertEquals(expectedReceipt, actualReceipt);
+        }
+
+        @Test
+        void beerShouldOnlyBeCombinedWithBeerOfItsOwnOrigin() {
+            orderItems.add(new OrderItem("Dutch beer", 2, "German"));
+            orderItems.add(new OrderItem("Dutch beer", 3, "Dutch"));
+            orderItems.add(new OrderItem("Dutch beer", 3, "Dutch"));
+            String actualReceipt = orderService.processOrder(order);
+            String expectedReceipt = """
+                    Order details:
+                    2 x Dutch beer: €1.00
+                    6 x Dutch beer: €1.00
+                    Total: €2.00
+                    """;
+            assertEquals(expectedReceipt, actualReceipt);
+        }
+
+        @Test
+        void beerDiscountShouldFollowTheOriginOfTheLine() {
+            orderItems.add(new OrderItem("German beer", 6, "Dutch"));
+            orderItems.add(new OrderItem("Belgium beer", 6, "French"));
+            String actualReceipt = orderService.processOrder(order);
+            String expectedReceipt = """
+                    Order details:
+                    6 x German beer: €4.00
+                    6 x Belgium beer: €4.50
+                    6 x Dutch beer: €1.00
+                    Total: €9.50
+                    """;
+            assertEquals(expectedReceipt, actualReceipt);
+        }
+
         @Test
         void givenBreadOneDayOldNoDiscountShouldBeApplied() {
             OrderItem oneDayOldBread = new OrderItem("bread", 3, 1);
             orderItems.add(oneDayOldBread);
-            Mockito.when(itemRepository.findByName("bread")).thenReturn(Optional.of(bread));
 
             String actualReceipt = orderService.processOrder(order);
             String expectedReceipt = """
@@ -68,7 +168,6 @@ public class OrderServiceTest {
         void givenNewBreadNoDiscountShouldBeApplied() {
             OrderItem newBread = new OrderItem("bread", 3, 0);
             orderItems.add(newBread);
-            Mockito.when(itemRepository.findByName("bread")).thenReturn(Optional.of(bread));
 
             String actualReceipt = orderService.processOrder(order);
             String expectedReceipt = """
@@ -83,7 +182,6 @@ public class OrderServiceTest {
         void shouldThrowExceptionIfBreadOlderThanSixDaysAdded() {
             OrderItem breadOldThanSixDays = new OrderItem("bread", 5, 7);
             orderItems.add(breadOldThanSixDays);
-            Mockito.when(itemRepository.findByName("bread")).thenReturn(Optional.of(bread));
             assertThrows(IllegalArgumentException.class, () -> orderService.processOrder(order));
         }
 
@@ -93,8 +191,6 @@ public class OrderServiceTest {
             OrderItem threeDaysOldBread = new OrderItem("bread", 2, 3);
             orderItems.add(sixDaysOldBread);
             orderItems.add(threeDaysOldBread);
-            Mockito.when(itemRepository.findByName(sixDaysOldBread.getName())).thenReturn(Optional.of(bread));
-            Mockito.when(itemRepository.findByName(threeDaysOldBread.getName())).thenReturn(Optional.of(bread));
 
             String actualReceipt = orderService.processOrder(order);
             String expectedReceipt = """
@@ -115,9 +211,6 @@ public class OrderServiceTest {
             orderItems.add(threeDaysOldBread);
             orderItems.add(twoHundredGmVegetable);
             orderItems.add(dutchBeer);
-            Mockito.when(itemRepository.findByName(threeDaysOldBread.getName())).thenReturn(Optional.of(bread));
-            Mockito.when(itemRepository.findByName(twoHundredGmVegetable.getName())).thenReturn(Optional.of(vegetable));
-            Mockito.when(itemRepository.findByName(dutchBeer.getName())).thenReturn(Optional.of(dutch_Beer));
             String expectedReceipt = """
                     Order details:
                     3 x bread (3 days old): €2.00
@@ -135,8 +228,6 @@ public class OrderServiceTest {
             orderItems.add(breadSixDaysOld);
             OrderItem germanBeer = new OrderItem("German beer", 6, "German");
             orderItems.add(germanBeer);
-            Mockito.when(itemRepository.findByName("German beer")).thenReturn(Optional.of(german_Beer));
-            Mockito.when(itemRepository.findByName("bread")).thenReturn(Optional.of(bread));
             String actualReceipt = orderService.processOrder(order);
             String expectedReceipt = """
                     Order details:
@@ -150,7 +241,6 @@ public class OrderServiceTest {
         void givenOrderWithSevenGermanBeersItemsDiscountShouldApply() {
             OrderItem germanBeer = new OrderItem("German beer", 7, "German");
             orderItems.add(germanBeer);
-            Mockito.when(itemRepository.findByName(germanBeer.getName())).thenReturn(Optional.of(german_Beer));
             String actualReceipt = orderService.processOrder(order);
             String expectedReceipt = """
                     Order details:
@@ -163,7 +253,6 @@ public class OrderServiceTest {
         void givenOrderWithTwelveBelgiumBeersItemsDiscountShouldApply() {
             OrderItem belgiumBeer = new OrderItem("Belgium beer", 12, "Belgium");
             orderItems.add(belgiumBeer);
-            Mockito.when(itemRepository.findByName(belgiumBeer.getName())).thenReturn(Optional.of(belgium_Beer));
             String actualReceipt = orderService.processOrder(order);
             String expectedReceipt = """
                     Order details:
@@ -182,7 +271,6 @@ public class OrderServiceTest {
                 orderItems.add(orderItem1);
                 i++;
             }
-            Mockito.when(itemRepository.findByName(orderItem1.getName())).thenReturn(Optional.of(dutch_Beer));
             String actualReceipt = orderService.processOrder(order);
             String expectedReceipt = """
                     Order details:
@@ -202,7 +290,6 @@ public class OrderServiceTest {
                 orderItems.add(orderItem1);
                 i++;
             }
-            Mockito.when(itemRepository.findByName(orderItem1.getName())).thenReturn(Optional.of(dutch_Beer));
             String actualReceipt = orderService.processOrder(order);
             String expectedReceipt = """
                     Order details:
@@ -218,8 +305,6 @@ public class OrderServiceTest {
             OrderItem belgiumBeer = new OrderItem("Belgium beer", 3, "Belgium");
             orderItems.add(germanBeer);
             orderItems.add(belgiumBeer);
-            Mockito.when(itemRepository.findByName(germanBeer.getName())).thenReturn(Optional.of(german_Beer));
-            Mockito.when(itemRepository.findByName(belgiumBeer.getName())).thenReturn(Optional.of(belgium_Beer));
             String actualReceipt = orderService.processOrder(order);
             String expectedReceipt = """
                     Order details:
@@ -235,8 +320,6 @@ public class OrderServiceTest {
             OrderItem belgiumBeer_again = new OrderItem("Belgium beer", 3, "Belgium");
             orderItems.add(belgiumBeer_again);
             orderItems.add(belgiumBeer);
-            Mockito.when(itemRepository.findByName(belgiumBeer_again.getName())).thenReturn(Optional.of(belgium_Beer));
-            Mockito.when(itemRepository.findByName(belgiumBeer.getName())).thenReturn(Optional.of(belgium_Beer));
             String actualReceipt = orderService.processOrder(order);
 
             String expectedReceipt = """
@@ -257,8 +340,6 @@ public class OrderServiceTest {
             Mockito.when(orderItem3.getPrice()).thenReturn(1.0);
             orderItems.add(orderItem2);
             orderItems.add(orderItem3);
-            Mockito.when(itemRepository.findByName(orderItem2.getName())).thenReturn(Optional.of(vegetable));
-            Mockito.when(itemRepository.findByName(orderItem3.getName())).thenReturn(Optional.of(vegetable));
             String actualReceipt = orderService.processOrder(order);
             String expectedReceipt = """
                     Order details:
@@ -277,8 +358,6 @@ public class OrderServiceTest {
             Mockito.when(orderItem3.getPrice()).thenReturn(1.0);
             orderItems.add(orderItem2);
             orderItems.add(orderItem3);
-            Mockito.when(itemRepository.findByName(orderItem2.getName())).thenReturn(Optional.of(vegetable));
-            Mockito.when(itemRepository.findByName(orderItem3.getName())).thenReturn(Optional.of(vegetable));
             String actualReceipt = orderService.processOrder(order);
             String expectedReceipt = """
                     Order details:
@@ -297,9 +376,6 @@ public class OrderServiceTest {
             orderItems.add(sixDaysOldBread);
             orderItems.add(sevenHundredGmVegetable);
             orderItems.add(belgiumBeer);
-            Mockito.when(itemRepository.findByName(sixDaysOldBread.getName())).thenReturn(Optional.of(bread));
-            Mockito.when(itemRepository.findByName(sevenHundredGmVegetable.getName())).thenReturn(Optional.of(vegetable));
-            Mockito.when(itemRepository.findByName(belgiumBeer.getName())).thenReturn(Optional.of(belgium_Beer));
             String expectedReceipt = """
                     Order details:
                     6 x bread (6 days old): €2.00
@@ -312,6 +388,61 @@ public class OrderServiceTest {
         }
 
 
+    }
+    @Nested
+    class TestProcessOrders {
+        @BeforeEach
+        void setup() {
+            itemRepository = Mockito.mock(ItemRepository.class);
+            promotionRuleRepository = Mockito.mock(PromotionRuleRepository.class);
+            Mockito.when(promotionRuleRepository.findAll()).thenReturn(BootStrapInitialData.defaultPromotionRules());
+            bread = new Item("bread", 1.0, Item.ProductType.BREAD);
+            dutch_Beer = new Item("Dutch beer", 0.50, Item.ProductType.DUTCH_BEER);
+            Mockito.when(itemRepository.findAll()).thenReturn(List.of(bread, dutch_Beer));
+            itemCatalog = new ItemCatalog(itemRepository, promotionRuleRepository);
+            itemCatalog.reload();
+            orderService = new OrderService(itemCatalog);
+        }
+
+        @Test
+        void givenBatchWithInvalidOrdersOnlyThoseOrdersShouldReportErrors() {
+            List<OrderRequest> orders = new ArrayList<>();
+            orders.add(new OrderRequest(List.of(new OrderRequest.Line("bread", 3, 3, null, 0.0))));
+            orders.add(new OrderRequest(List.of()));
+            orders.add(new OrderRequest(List.of(new OrderRequest.Line("carrot", 3, 0, null, 0.0))));
+            orders.add(new OrderRequest(List.of(new OrderRequest.Line("bread", 3, 7, null, 0.0))));
+            orders.add(new OrderRequest(List.of(new OrderRequest.Line("Dutch beer", 6, null, "Dutch", 0.0))));
+
+            List<OrderResult> results = orderService.processOrders(orders);
+
+            assertEquals(5, results.size());
+            assertEquals(OrderResult.receipt(0, new Receipt("""
+                    Order details:
+                    3 x bread (3 days old): €2.00
+                    Total: €2.00
+                    """, 1)), results.get(0));
+            assertEquals(OrderResult.error(1, "No items found in the order hence it is not valid."), results.get(1));
+            assertEquals(OrderResult.error(2, "Item added is not valid."), results.get(2));
+            assertEquals(OrderResult.error(3, "Bread older than six days can not be added to the order."), results.get(3));
+            assertEquals(OrderResult.receipt(4, new Receipt("""
+                    Order details:
+                    6 x Dutch beer: €1.00
+                    Total: €1.00
+                    """, 1)), results.get(4));
+        }
+
+        @Test
+        void givenLargeBatchResultsShouldKeepRequestOrder() {
+            List<OrderRequest> orders = new ArrayList<>();
+            for (int i = 1; i <= 1000; i++) {
+                orders.add(new OrderRequest(List.of(new OrderRequest.Line("bread", i, 0, null, 0.0))));
+            }
+            List<OrderResult> results = orderService.processOrders(orders);
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i, results.get(i).index());
+                assertEquals(String.format("Order details:\n%d x bread (0 days old): €%.2f\nTotal: €%.2f\n", i + 1, (double) (i + 1), (double) (i + 1)), results.get(i).receipt());
+            }
+        }
     }
     @Nested
     class TestGetAllDiscountRulesAndPrices{
@@ -324,19 +455,24 @@ public class OrderServiceTest {
            items.add(new Item("German beer", Item.ProductType.GERMAN_BEER,1.0," € 4,00 for each German beer pack."));
            items.add(new Item("Belgium beer", Item.ProductType.BELGIUM_BEER,0.75," € 3,00 for each Belgium beer pack."));
             itemRepository = Mockito.mock(ItemRepository.class);
-            orderService = new OrderService(itemRepository);
+            promotionRuleRepository = Mockito.mock(PromotionRuleRepository.class);
+            Mockito.when(promotionRuleRepository.findAll()).thenReturn(BootStrapInitialData.defaultPromotionRules());
+            itemCatalog = new ItemCatalog(itemRepository, promotionRuleRepository);
+            orderService = new OrderService(itemCatalog);
             pricePerItem=new HashMap<>();
         }
         @Test
         void shouldReturnEmptyListWhenNoDiscountPresent(){
 
             Mockito.when(itemRepository.findAll()).thenReturn(Collections.emptyList());
+            itemCatalog.reload();
             List<String> discountRules=orderService.getAllDiscountRules();
             assertEquals(0,discountRules.size());
         }
         @Test
         void shouldReturnDiscountsWhenItemsHaveDiscounts(){
             Mockito.when(itemRepository.findAll()).thenReturn(items);
+            itemCatalog.reload();
             List<String> discountRules=orderService.getAllDiscountRules();
             assertEquals(items.size(),discountRules.size());
             assertEquals(items.get(2).getDiscountRule(),discountRules.get(2));
@@ -345,12 +481,14 @@ public class OrderServiceTest {
         @Test
         void shouldReturnEmptyMapWhenNoItemPresent(){
             Mockito.when(itemRepository.findAll()).thenReturn( Collections.EMPTY_LIST);
+            itemCatalog.reload();
             pricePerItem=orderService.getPricesItemWise();
             assertEquals(0,pricePerItem.size());
         }
         @Test
         void shouldReturnPricesWhenItemsPresent(){
             Mockito.when(itemRepository.findAll()).thenReturn(items);
+            itemCatalog.reload();
             pricePerItem=orderService.getPricesItemWise();
             assertEquals(items.size(),pricePerItem.size());
             assertEquals(items.get(0).getUnitPrice(),pricePerItem.get("bread"));
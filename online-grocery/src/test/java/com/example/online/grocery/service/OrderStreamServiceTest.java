@@ -0,0 +1,130 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.BootStrapInitialData;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.repository.ItemRepository;
+import com.example.online.grocery.repository.PromotionRuleRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderStreamServiceTest {
+    ObjectMapper objectMapper = new ObjectMapper();
+    ExecutorService pricingExecutor;
+    ItemCatalog itemCatalog;
+    OrderStreamService orderStreamService;
+
+    @BeforeEach
+    void setup() {
+        ItemRepository itemRepository = Mockito.mock(ItemRepository.class);
+        Mockito.when(itemRepository.findAll()).thenReturn(List.of(
+                new Item("bread", 1.0, Item.ProductType.BREAD),
+                new Item("German beer", 1.0, Item.ProductType.GERMAN_BEER)));
+        PromotionRuleRepository promotionRuleRepository = Mockito.mock(PromotionRuleRepository.class);
+        Mockito.when(promotionRuleRepository.findAll()).thenReturn(BootStrapInitialData.defaultPromotionRules());
+        itemCatalog = new ItemCatalog(itemRepository, promotionRuleRepository);
+        itemCatalog.reload();
+        pricingExecutor = Executors.newFixedThreadPool(4);
+        orderStreamService = new OrderStreamService(new OrderService(itemCatalog), itemCatalog, pricingExecutor, objectMapper, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pricingExecutor.shutdownNow();
+    }
+
+    @Test
+    void givenNdjsonOrdersEveryOrderShouldGetOneResultLineInInputOrder() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int i = 1; i <= 100; i++) {
+            input.append("{\"orderItems\":[{\"name\":\"bread\",\"quantity\":").append(i).append(",\"age\":0}]}\n");
+        }
+        List<JsonNode> results = process(input.toString());
+        assertEquals(100, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).get("index").asInt());
+            assertTrue(results.get(i).get("receipt").asText().startsWith("Order details:\n" + (i + 1) + " x bread (0 days old)"));
+        }
+    }
+
+    @Test
+    void givenInvalidOrderInStreamOnlyThatOrderShouldReportError() throws IOException {
+        String input = """
+                {"orderItems":[{"name":"German beer","quantity":6,"origin":"German"}]}
+                {"orderItems":[]}
+                {"orderItems":[{"name":"bread","quantity":2,"age":3}]}
+                """;
+        List<JsonNode> results = process(input);
+        assertEquals(3, results.size());
+        assertEquals("Order details:\n6 x German beer: €2.00\nTotal: €2.00\n", results.get(0).get("receipt").asText());
+        assertEquals("No items found in the order hence it is not valid.", results.get(1).get("error").asText());
+        assertEquals("Order details:\n2 x bread (3 days old): €1.00\nTotal: €1.00\n", results.get(2).get("receipt").asText());
+    }
+
+    @Test
+    void givenJsonArrayOfOrdersEveryOrderShouldBePriced() throws IOException {
+        String input = "[{\"orderItems\":[{\"name\":\"bread\",\"quantity\":1,\"age\":0}]},{\"orderItems\":[{\"name\":\"carrot\",\"quantity\":1,\"age\":0}]}]";
+        List<JsonNode> results = process(input);
+        assertEquals(2, results.size());
+        assertEquals("Item added is not valid.", results.get(1).get("error").asText());
+    }
+
+    @Test
+    void givenMalformedLineStreamShouldEndWithErrorAfterEarlierResults() throws IOException {
+        String input = """
+                {"orderItems":[{"name":"bread","quantity":1,"age":0}]}
+                {"orderItems":[{"name":
+                """;
+        List<JsonNode> results = process(input);
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).has("receipt"));
+        assertEquals(1, results.get(1).get("index").asInt());
+        assertTrue(results.get(1).get("error").asText().startsWith("Order could not be read"));
+    }
+
+    @Test
+    void givenUnexpectedFailureStreamShouldReportItAndCarryOn() throws IOException {
+        OrderService orderService = Mockito.spy(new OrderService(itemCatalog));
+        Mockito.doThrow(new AssertionError("boom")).when(orderService).processOrderInBatch(Mockito.eq(1), Mockito.any(), Mockito.any());
+        orderStreamService = new OrderStreamService(orderService, itemCatalog, pricingExecutor, objectMapper, 3);
+        String input = """
+                {"orderItems":[{"name":"bread","quantity":1,"age":0}]}
+                {"orderItems":[{"name":"bread","quantity":2,"age":0}]}
+                {"orderItems":[{"name":"bread","quantity":3,"age":0}]}
+                """;
+        List<JsonNode> results = process(input);
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).has("receipt"));
+        assertEquals(OrderService.UNEXPECTED_ERROR, results.get(1).get("error").asText());
+        assertEquals(2, results.get(2).get("index").asInt());
+        assertTrue(results.get(2).has("receipt"));
+    }
+
+    private List<JsonNode> process(String input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        orderStreamService.processOrders(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        return Arrays.stream(lines).map(line -> {
+            try {
+                return objectMapper.readTree(line);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }).toList();
+    }
+}
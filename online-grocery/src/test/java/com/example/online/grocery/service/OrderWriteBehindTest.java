@@ -0,0 +1,231 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.entity.OrderItem;
+import com.example.online.grocery.repository.OrderItemRepository;
+import com.example.online.grocery.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:writebehind", "grocery.orders.write-behind.flush-interval=10ms"})
+public class OrderWriteBehindTest {
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    OrderItemRepository orderItemRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void pricedOrdersShouldBePersistedWithTheirLinesInTheBackground() throws InterruptedException {
+        long ordersBefore = orderRepository.count();
+        long linesBefore = orderItemRepository.count();
+
+        orderService.processOrder(new Order(new ArrayList<>(List.of(new OrderItem("bread", 3, 3), new OrderItem("vegetable", 200.0)))));
+        orderService.processOrders(List.of(
+                new OrderRequest(List.of(new OrderRequest.Line("Dutch beer", 6, null, "Dutch", 0.0))),
+                new OrderRequest(List.of(new OrderRequest.Line("carrot", 1, 1, null, 0.0)))));
+
+        awaitCount(orderRepository, ordersBefore + 2);
+        assertEquals(linesBefore + 3, orderItemRepository.count());
+        OrderItem bread = orderItemRepository.findAll().stream().filter(line -> line.getName().equals("bread")).findFirst().orElseThrow();
+        assertEquals("bread", bread.getItem().getName());
+        assertEquals(3_860_000L, bread.getOrder().getTotalPriceMicros());
+        assertEquals(0.0, meterRegistry.get("grocery.orders.write_behind.queue.depth").gauge().value());
+    }
+
+    @Test
+    void stoppingShouldPersistEverythingStillQueued() {
+        OrderRepository repository = Mockito.mock(OrderRepository.class);
+        List<Order> saved = Collections.synchronizedList(new ArrayList<>());
+        Mockito.when(repository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            saved.addAll(invocation.getArgument(0));
+            return List.of();
+        });
+        OrderWriteBehind writeBehind = new OrderWriteBehind(repository, Mockito.mock(PlatformTransactionManager.class), new SimpleMeterRegistry(),
+                10, 100, Duration.ofHours(1), Duration.ofSeconds(10), 3, Duration.ofMillis(1));
+        writeBehind.start();
+        List.of(order(1), order(2), order(3)).forEach(writeBehind::accept);
+
+        writeBehind.stop();
+
+        assertEquals(List.of(1L, 2L, 3L), versions(saved));
+        assertEquals(0, writeBehind.queueDepth());
+
+        writeBehind.accept(order(4));
+        assertEquals(4L, saved.get(3).getCatalogVersion());
+    }
+
+    @Test
+    void failedBatchShouldBeRetried() {
+        OrderRepository repository = Mockito.mock(OrderRepository.class);
+        List<Order> saved = Collections.synchronizedList(new ArrayList<>());
+        List<Order> failed = Collections.synchronizedList(new ArrayList<>());
+        Mockito.when(repository.saveAll(Mockito.anyList()))
+                .thenAnswer(invocation -> {
+                    failed.addAll(invocation.getArgument(0));
+                    throw new IllegalStateException("connection lost");
+                })
+                .thenAnswer(invocation -> {
+                    saved.addAll(invocation.getArgument(0));
+                    return List.of();
+                });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OrderWriteBehind writeBehind = new OrderWriteBehind(repository, Mockito.mock(PlatformTransactionManager.class), registry,
+                10, 100, Duration.ofHours(1), Duration.ofSeconds(10), 3, Duration.ofMillis(1));
+        writeBehind.start();
+        List.of(order(1), order(2)).forEach(writeBehind::accept);
+
+        writeBehind.stop();
+
+        assertEquals(List.of(1L, 2L), versions(saved));
+        assertTrue(saved.stream().noneMatch(order -> failed.stream().anyMatch(attempted -> attempted == order)));
+        assertEquals(1.0, registry.get("grocery.orders.write_behind.retried").counter().count());
+        assertEquals(0.0, registry.get("grocery.orders.write_behind.failed").counter().count());
+    }
+
+    @Test
+    void batchThatKeepsFailingShouldBeSavedOrderByOrder() {
+        OrderRepository repository = Mockito.mock(OrderRepository.class);
+        List<Order> saved = Collections.synchronizedList(new ArrayList<>());
+        Mockito.when(repository.saveAll(Mockito.anyList())).thenThrow(new IllegalStateException("constraint violated"));
+        Mockito.when(repository.save(Mockito.any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            if (order.getCatalogVersion() == 2) {
+                throw new IllegalStateException("constraint violated");
+            }
+            saved.add(order);
+            return order;
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OrderWriteBehind writeBehind = new OrderWriteBehind(repository, Mockito.mock(PlatformTransactionManager.class), registry,
+                10, 100, Duration.ofHours(1), Duration.ofSeconds(10), 2, Duration.ofMillis(1));
+        writeBehind.start();
+        List.of(order(1), order(2), order(3)).forEach(writeBehind::accept);
+
+        writeBehind.stop();
+
+        assertEquals(List.of(1L, 3L), versions(saved));
+        assertEquals(1.0, registry.get("grocery.orders.write_behind.failed").counter().count());
+        assertEquals(2.0, registry.get("grocery.orders.write_behind.persisted").counter().count());
+    }
+
+    @Test
+    void stoppingShouldSaveWhatIsQueuedWhenTheWriterIsStuck() throws InterruptedException {
+        OrderRepository repository = Mockito.mock(OrderRepository.class);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Order> saved = Collections.synchronizedList(new ArrayList<>());
+        Mockito.when(repository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals("order-writer")) {
+                writing.countDown();
+                release.await();
+            }
+            saved.addAll(invocation.getArgument(0));
+            return List.of();
+        });
+        OrderWriteBehind writeBehind = new OrderWriteBehind(repository, Mockito.mock(PlatformTransactionManager.class), new SimpleMeterRegistry(),
+                10, 1, Duration.ofHours(1), Duration.ofMillis(50), 3, Duration.ofMillis(1));
+        writeBehind.start();
+        writeBehind.accept(order(1));
+        writing.await();
+        List.of(order(2), order(3)).forEach(writeBehind::accept);
+
+        writeBehind.stop();
+
+        assertEquals(List.of(2L, 3L), versions(saved));
+        assertEquals(0, writeBehind.queueDepth());
+        release.countDown();
+    }
+
+    @Test
+    void orderWaitingForAFullQueueShouldBeSavedWhenStopping() throws InterruptedException {
+        OrderRepository repository = Mockito.mock(OrderRepository.class);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Order> saved = Collections.synchronizedList(new ArrayList<>());
+        Mockito.when(repository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals("order-writer")) {
+                writing.countDown();
+                release.await();
+            }
+            saved.addAll(invocation.getArgument(0));
+            return List.of();
+        });
+        OrderWriteBehind writeBehind = new OrderWriteBehind(repository, Mockito.mock(PlatformTransactionManager.class), new SimpleMeterRegistry(),
+                1, 1, Duration.ofHours(1), Duration.ofMillis(50), 3, Duration.ofMillis(1));
+        writeBehind.start();
+        writeBehind.accept(order(1));
+        writing.await();
+        writeBehind.accept(order(2));
+        Thread pricing = new Thread(() -> writeBehind.accept(order(3)));
+        pricing.start();
+        while (pricing.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+
+        writeBehind.stop();
+        pricing.join(Duration.ofSeconds(10).toMillis());
+
+        assertFalse(pricing.isAlive());
+        assertEquals(List.of(2L, 3L), versions(saved).stream().sorted().toList());
+        assertEquals(0, writeBehind.queueDepth());
+        release.countDown();
+    }
+
+    @Test
+    void pricedLinesShouldBecomeOrderItemsOfTheSavedOrder() {
+        Item bread = new Item("bread", 1.0, Item.ProductType.BREAD);
+        PricedOrder priced = new PricedOrder(List.of(new OrderRequest.Line("bread", 3, 3, null, 0.0)), 7, Instant.EPOCH);
+        priced.price(0, bread, 1_000_000L, 1_000_000L);
+        priced.setTotalPriceMicros(2_000_000L);
+
+        Order order = priced.toOrder();
+
+        OrderItem line = order.getOrderItems().get(0);
+        assertEquals(List.of("bread", 3, 3), List.of(line.getName(), line.getQuantity(), line.getAge()));
+        assertSame(bread, line.getItem());
+        assertSame(order, line.getOrder());
+        assertEquals(1_000_000L, line.getDiscountMicros());
+        assertEquals(2_000_000L, order.getTotalPriceMicros());
+        assertEquals(7L, order.getCatalogVersion());
+        assertEquals(Instant.EPOCH, order.getPlacedAt());
+    }
+
+    private static PricedOrder order(long catalogVersion) {
+        return new PricedOrder(List.of(), catalogVersion, Instant.EPOCH);
+    }
+
+    private static List<Long> versions(List<Order> orders) {
+        return orders.stream().map(Order::getCatalogVersion).toList();
+    }
+
+    private void awaitCount(OrderRepository repository, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (repository.count() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, repository.count());
+    }
+}
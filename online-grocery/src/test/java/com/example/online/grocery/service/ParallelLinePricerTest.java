@@ -0,0 +1,105 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.BootStrapInitialData;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.entity.OrderItem;
+import com.example.online.grocery.exceptions.ItemNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelLinePricerTest {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    ItemCatalog itemCatalog = new ItemCatalog(null, null);
+    OrderService sequential;
+    OrderService parallel;
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    List<PricedOrder> persisted = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        itemCatalog.publish(new CatalogSnapshot(List.of(
+                new Item("bread", 1.0, Item.ProductType.BREAD),
+                new Item("vegetable", 1.0, Item.ProductType.VEGETABLE),
+                new Item("Dutch beer", 0.5, Item.ProductType.DUTCH_BEER),
+                new Item("German beer", 1.0, Item.ProductType.GERMAN_BEER)),
+                BootStrapInitialData.defaultPromotionRules()));
+        sequential = new OrderService(itemCatalog);
+        parallel = new OrderService(itemCatalog, persisted::add, new PricingMetrics(registry), ReceiptMemo.NONE, SalesAggregates.NONE,
+                new ParallelLinePricer(pool, 2));
+    }
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void largeBasketsShouldBePricedToTheSameCent() {
+        for (int lines : List.of(2, 255, 257, 5_000, 20_001)) {
+            assertEquals(sequential.processOrder(basket(lines)), parallel.processOrder(basket(lines)), lines + " lines");
+        }
+    }
+
+    @Test
+    void everyLineShouldBePricedAndCounted() {
+        parallel.processOrder(basket(5_000));
+
+        Order priced = persisted.get(0).toOrder();
+        for (OrderItem orderItem : priced.getOrderItems()) {
+            assertNotNull(orderItem.getItem());
+            assertSame(priced, orderItem.getOrder());
+        }
+        assertEquals(1, registry.get("grocery.pricing.discount.time").tag("type", "BREAD").timer().count());
+        assertEquals(1, registry.get("grocery.pricing.discount.time").tag("type", "VEGETABLE").timer().count());
+    }
+
+    @Test
+    void theFirstFailingLineShouldBeReported() {
+        List<OrderItem> lines = basket(5_000).getOrderItems();
+        lines.set(100, new OrderItem("bread", 1, 7));
+        lines.set(4_000, new OrderItem("carrot", 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> parallel.processOrder(new Order(new ArrayList<>(lines))));
+
+        lines.set(100, new OrderItem("carrot", 1, 1));
+        lines.set(4_000, new OrderItem("bread", 1, 7));
+        assertThrows(ItemNotFoundException.class, () -> parallel.processOrder(new Order(new ArrayList<>(lines))));
+        assertTrue(persisted.isEmpty());
+    }
+
+    @Test
+    void smallBasketsShouldStayOnTheCallingThread() {
+        ParallelLinePricer pricer = new ParallelLinePricer(pool, 4096);
+
+        assertFalse(pricer.shouldSplit(4095));
+        assertTrue(pricer.shouldSplit(4096));
+        assertFalse(ParallelLinePricer.NONE.shouldSplit(Integer.MAX_VALUE - 1));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelLinePricer(pool, 1));
+    }
+
+    /**
+     * Bread lines of every age, which are not combined, and a few vegetable and beer lines, which are.
+     */
+    private static Order basket(int lines) {
+        Random random = new Random(lines);
+        List<OrderItem> orderItems = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            switch (i % 10) {
+                case 7 -> orderItems.add(new OrderItem("vegetable", 50.0 + random.nextInt(650)));
+                case 8 -> orderItems.add(new OrderItem("Dutch beer", 1 + random.nextInt(12), "Dutch"));
+                case 9 -> orderItems.add(new OrderItem("German beer", 1 + random.nextInt(3), "German"));
+                default -> orderItems.add(new OrderItem("bread", 1 + random.nextInt(10), random.nextInt(7)));
+            }
+        }
+        return new Order(orderItems);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.BootStrapInitialData;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.entity.OrderItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PricingContextTest {
+
+    @Test
+    void platformThreadsShouldKeepTheirContext() {
+        PricingContext context = PricingContext.acquire();
+        context.release();
+
+        assertSame(context, PricingContext.acquire());
+    }
+
+    @Test
+    void virtualThreadsShouldBorrowContextsFromThePool() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> {
+                PricingContext released = PricingContext.acquire();
+                released.release();
+                PricingContext borrowed = PricingContext.acquire();
+                PricingContext another = PricingContext.acquire();
+                borrowed.release();
+                another.release();
+
+                assertSame(released, borrowed);
+                assertNotSame(borrowed, another);
+                return null;
+            }).get();
+        }
+    }
+
+    @Test
+    void contextShouldStartEveryOrderFromScratch() {
+        PricingContext context = new PricingContext();
+        context.lineTotals().discountMicrosByType[Item.ProductType.BREAD.ordinal()] = 7L;
+        context.lineTotals().totalPriceMicros = 7L;
+        context.receipt().append("Order details:\n");
+
+        assertEquals(0L, context.lineTotals().discountMicrosByType[Item.ProductType.BREAD.ordinal()]);
+        assertEquals(0L, context.lineTotals().totalPriceMicros);
+        assertEquals(0, context.receipt().length());
+    }
+
+    @Test
+    void oversizedReceiptBufferShouldNotBeKept() {
+        PricingContext context = new PricingContext();
+        context.receipt().append("x".repeat(100_000));
+        context.release();
+
+        assertTrue(context.receipt().capacity() < 100_000);
+    }
+
+    @Test
+    void ordersPricedOnVirtualThreadsShouldMatchPlatformThreads() throws Exception {
+        ItemCatalog itemCatalog = new ItemCatalog(null, null);
+        itemCatalog.publish(new CatalogSnapshot(List.of(new Item("bread", 1.0, Item.ProductType.BREAD),
+                new Item("Dutch beer", 0.5, Item.ProductType.DUTCH_BEER)),
+                BootStrapInitialData.defaultPromotionRules()));
+        OrderService orderService = new OrderService(itemCatalog);
+        String expected = orderService.processOrder(order());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> receipts = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                receipts.add(executor.submit(() -> orderService.processOrder(order())));
+            }
+            for (Future<String> receipt : receipts) {
+                assertEquals(expected, receipt.get());
+            }
+        }
+    }
+
+    private static Order order() {
+        return new Order(new ArrayList<>(List.of(new OrderItem("bread", 3, 3), new OrderItem("Dutch beer", 6, "Dutch"))));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.BootStrapInitialData;
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.dto.OrderResult;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.entity.OrderItem;
+import com.example.online.grocery.exceptions.ItemNotFoundException;
+import com.example.online.grocery.exceptions.NotValidOrderException;
+import com.example.online.grocery.repository.ItemRepository;
+import com.example.online.grocery.repository.PromotionRuleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PricingMetricsTest {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    OrderService orderService;
+
+    @BeforeEach
+    void setup() {
+        ItemRepository itemRepository = Mockito.mock(ItemRepository.class);
+        PromotionRuleRepository promotionRuleRepository = Mockito.mock(PromotionRuleRepository.class);
+        Mockito.when(itemRepository.findAll()).thenReturn(List.of(new Item("bread", 1.0, Item.ProductType.BREAD),
+                new Item("vegetable", 1.0, Item.ProductType.VEGETABLE), new Item("Dutch beer", 0.5, Item.ProductType.DUTCH_BEER)));
+        Mockito.when(promotionRuleRepository.findAll()).thenReturn(BootStrapInitialData.defaultPromotionRules());
+        ItemCatalog itemCatalog = new ItemCatalog(itemRepository, promotionRuleRepository);
+        itemCatalog.reload();
+        orderService = new OrderService(itemCatalog, PricedOrderSink.NONE, new PricingMetrics(registry), ReceiptMemo.NONE, SalesAggregates.NONE, ParallelLinePricer.NONE);
+    }
+
+    @Test
+    void pricedOrderShouldBeRecordedPerStageAndProductType() {
+        orderService.processOrder(new Order(new ArrayList<>(List.of(new OrderItem("bread", 3, 3), new OrderItem("Dutch beer", 4, "Dutch"),
+                new OrderItem("vegetable", 200.0), new OrderItem("Dutch beer", 2, "Dutch")))));
+
+        for (String stage : List.of("order", "consolidation", "lookup", "receipt")) {
+            assertEquals(1, registry.get("grocery.pricing.stage").tag("stage", stage).timer().count(), stage);
+        }
+        assertEquals(1, registry.get("grocery.pricing.discount.time").tag("type", "BREAD").timer().count());
+        assertEquals(1, registry.get("grocery.pricing.discount.time").tag("type", "DUTCH_BEER").timer().count());
+        assertEquals(0, registry.get("grocery.pricing.discount.time").tag("type", "GERMAN_BEER").timer().count());
+        assertEquals(1.0, registry.get("grocery.pricing.discount.total").tag("type", "BREAD").counter().count(), 1e-9);
+        assertEquals(2.0, registry.get("grocery.pricing.discount.total").tag("type", "DUTCH_BEER").counter().count(), 1e-9);
+        assertEquals(0.14, registry.get("grocery.pricing.discount.total").tag("type", "VEGETABLE").counter().count(), 1e-9);
+        assertEquals(4.0, registry.get("grocery.pricing.basket.lines").summary().totalAmount());
+        assertEquals(1.0, registry.get("grocery.pricing.lines.merged").counter().count());
+    }
+
+    @Test
+    void rejectedOrdersShouldBeCountedByException() {
+        assertThrows(NotValidOrderException.class, () -> orderService.processOrder(new Order(new ArrayList<>())));
+        assertThrows(ItemNotFoundException.class, () -> orderService.processOrder(new Order(new ArrayList<>(List.of(new OrderItem("carrot", 1, 1))))));
+        orderService.processOrders(List.of(new OrderRequest(List.of(new OrderRequest.Line("bread", 1, 7, null, 0.0)))));
+
+        assertEquals(1.0, registry.get("grocery.pricing.rejected").tag("exception", "NotValidOrderException").counter().count());
+        assertEquals(1.0, registry.get("grocery.pricing.rejected").tag("exception", "ItemNotFoundException").counter().count());
+        assertEquals(1.0, registry.get("grocery.pricing.rejected").tag("exception", "IllegalArgumentException").counter().count());
+        assertEquals(0, registry.get("grocery.pricing.stage").tag("stage", "order").timer().count());
+    }
+
+    @Test
+    void unexpectedFailureShouldOnlyFailItsOwnOrderOfABatch() {
+        OrderRequest.Line bread = new OrderRequest.Line("bread", 1, 1, null, 0.0);
+        List<OrderResult> results = orderService.processOrders(List.of(new OrderRequest(List.of(bread)),
+                new OrderRequest(Arrays.asList(bread, null))));
+
+        assertEquals("Order details:\n1 x bread (1 days old): €1.00\nTotal: €1.00\n", results.get(0).receipt());
+        assertEquals(OrderResult.error(1, OrderService.UNEXPECTED_ERROR), results.get(1));
+        assertEquals(1.0, registry.get("grocery.pricing.failed").counter().count());
+    }
+}
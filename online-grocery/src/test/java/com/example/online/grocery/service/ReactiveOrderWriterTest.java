@@ -0,0 +1,99 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.entity.Item;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReactiveOrderWriterTest {
+    ConnectionFactory database = ConnectionFactories.get("r2dbc:h2:mem:///" + UUID.randomUUID() + "?options=DB_CLOSE_DELAY=-1");
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void createTables() {
+        execute("create sequence orders_seq start with 1 increment by 50");
+        execute("create sequence order_item_seq start with 1 increment by 50");
+        execute("create table orders (order_id int primary key, total_price_micros bigint, catalog_version bigint, placed_at timestamp(6) with time zone)");
+        execute("""
+                create table order_item (order_item_id int primary key, name varchar(255) not null, quantity int, price_micros bigint,
+                discount_micros bigint, age int, origin varchar(255), weight double precision, item_id int, order_id int)""");
+    }
+
+    @Test
+    void failedBatchShouldBeRetried() {
+        AtomicInteger connections = new AtomicInteger();
+        ConnectionFactory connectionFactory = Mockito.mock(ConnectionFactory.class);
+        Mockito.doAnswer(invocation -> connections.getAndIncrement() == 0
+                ? Mono.error(new IllegalStateException("connection lost"))
+                : database.create()).when(connectionFactory).create();
+        ReactiveOrderWriter writer = writer(connectionFactory);
+        writer.start();
+        writer.accept(bread("bread"));
+        writer.accept(bread("bread"));
+
+        writer.stop();
+
+        assertEquals(2L, count("orders"));
+        assertEquals(1.0, registry.get("grocery.orders.write_behind.retried").counter().count());
+        assertEquals(2.0, registry.get("grocery.orders.write_behind.persisted").counter().count());
+        assertEquals(0.0, registry.get("grocery.orders.write_behind.failed").counter().count());
+    }
+
+    @Test
+    void batchThatKeepsFailingShouldBeSavedOrderByOrder() {
+        ReactiveOrderWriter writer = writer(database);
+        writer.start();
+        writer.accept(bread("bread"));
+        writer.accept(bread(null));
+        writer.accept(bread("bread"));
+
+        writer.stop();
+
+        assertEquals(2L, count("orders"));
+        assertEquals(2L, count("order_item"));
+        assertEquals(1.0, registry.get("grocery.orders.write_behind.retried").counter().count());
+        assertEquals(2.0, registry.get("grocery.orders.write_behind.persisted").counter().count());
+        assertEquals(1.0, registry.get("grocery.orders.write_behind.failed").counter().count());
+    }
+
+    private ReactiveOrderWriter writer(ConnectionFactory connectionFactory) {
+        return new ReactiveOrderWriter(connectionFactory, registry, 10, 100, Duration.ofHours(1), Duration.ofSeconds(10), 2, Duration.ofMillis(1));
+    }
+
+    private static PricedOrder bread(String name) {
+        PricedOrder order = new PricedOrder(List.of(new OrderRequest.Line(name, 1, 0, null, 0.0)), 1, Instant.EPOCH);
+        order.price(0, new Item(1, "bread", Item.ProductType.BREAD, 1.0, "bread rule"), 1_000_000L, 0L);
+        order.setTotalPriceMicros(1_000_000L);
+        return order;
+    }
+
+    private void execute(String sql) {
+        Mono.usingWhen(database.create(),
+                connection -> Flux.from(connection.createStatement(sql).execute()).flatMap(Result::getRowsUpdated).then(),
+                Connection::close).block();
+    }
+
+    private long count(String table) {
+        return Mono.usingWhen(database.create(),
+                connection -> Flux.from(connection.createStatement("select count(*) from " + table).execute())
+                        .flatMap(result -> result.map((row, metadata) -> row.get(0, Long.class)))
+                        .single(),
+                Connection::close).block();
+    }
+}
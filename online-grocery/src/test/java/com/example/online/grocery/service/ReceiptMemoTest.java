@@ -0,0 +1,94 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.BootStrapInitialData;
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.entity.OrderItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ReceiptMemoTest {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    ItemCatalog itemCatalog = new ItemCatalog(null, null);
+    List<PricedOrder> persisted = new ArrayList<>();
+    OrderService orderService;
+
+    @BeforeEach
+    void setup() {
+        itemCatalog.publish(catalog(1.0));
+        orderService = new OrderService(itemCatalog, persisted::add, PricingMetrics.NONE, new ReceiptMemo(registry, true, 100, 8), SalesAggregates.NONE, ParallelLinePricer.NONE);
+    }
+
+    @Test
+    void identicalBasketShouldBeServedFromTheMemo() {
+        String receipt = orderService.processOrder(basket());
+
+        assertEquals(receipt, orderService.processOrder(basket()));
+        assertEquals(1.0, hits());
+        assertEquals(1.0, misses());
+        PricedOrder first = persisted.get(0);
+        PricedOrder memoized = persisted.get(1);
+        assertEquals(first.getTotalPriceMicros(), memoized.getTotalPriceMicros());
+        assertEquals(first.getLines(), memoized.getLines());
+        for (int i = 0; i < memoized.getLines().size(); i++) {
+            assertSame(first.getItem(i), memoized.getItem(i));
+            assertEquals(first.getPriceMicros(i), memoized.getPriceMicros(i));
+            assertEquals(first.getDiscountMicros(i), memoized.getDiscountMicros(i));
+        }
+    }
+
+    @Test
+    void basketsThatConsolidateAlikeShouldShareAnEntry() {
+        orderService.processOrder(new Order(new ArrayList<>(List.of(new OrderItem("vegetable", 100.0), new OrderItem("vegetable", 50.0)))));
+        orderService.processOrder(new Order(new ArrayList<>(List.of(new OrderItem("vegetable", 150.0)))));
+
+        assertEquals(1.0, hits());
+    }
+
+    @Test
+    void publishedCatalogShouldInvalidateReceipts() {
+        assertEquals("Order details:\n3 x bread (3 days old): €2.00\n200.0 g x vegetable: €1.86\nTotal: €3.86\n", orderService.processOrder(basket()));
+
+        itemCatalog.publish(catalog(2.0));
+
+        assertEquals("Order details:\n3 x bread (3 days old): €4.00\n200.0 g x vegetable: €3.72\nTotal: €7.72\n", orderService.processOrder(basket()));
+        assertEquals(0.0, hits());
+        assertEquals(2.0, misses());
+    }
+
+    @Test
+    void largeBasketsShouldNotBeMemoized() {
+        List<OrderRequest.Line> lines = new ArrayList<>();
+        for (int age = 0; age < 9; age++) {
+            lines.add(new OrderRequest.Line("bread", 1, age % 7, null, 0.0));
+        }
+        ReceiptMemo receiptMemo = new ReceiptMemo(registry, true, 100, 8);
+        assertNull(receiptMemo.key(itemCatalog.snapshot(), lines));
+    }
+
+    private double hits() {
+        return registry.get("cache.gets").tag("cache", "receipts").tag("result", "hit").functionCounter().count();
+    }
+
+    private double misses() {
+        return registry.get("cache.gets").tag("cache", "receipts").tag("result", "miss").functionCounter().count();
+    }
+
+    private static Order basket() {
+        return new Order(new ArrayList<>(List.of(new OrderItem("bread", 3, 3), new OrderItem("vegetable", 200.0))));
+    }
+
+    private static CatalogSnapshot catalog(double price) {
+        return new CatalogSnapshot(List.of(new Item("bread", price, Item.ProductType.BREAD), new Item("vegetable", price, Item.ProductType.VEGETABLE)),
+                BootStrapInitialData.defaultPromotionRules());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.online.grocery.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReceiptWriterTest {
+
+    @Test
+    void shouldMatchStringFormatForTiesAndEdgeCases() {
+        double[] values = {0.0, -0.0, 0.005, 0.015, 0.125, 0.855, 1.005, 2.675, 4.86, 6.605, 1.86, -0.005, -1.005, -3.0,
+                0.049999999999999996, 999999.995, 1e6, 1.5e9, 123456789.125, Double.MIN_VALUE, Double.MAX_VALUE,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 200.05, 99.95, 0.95, 0.05};
+        for (double value : values) {
+            assertFormattedLikeStringFormat(value);
+        }
+    }
+
+    @Test
+    void shouldMatchStringFormatForPricingResults() {
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            double unitPrice = random.nextInt(500) / 100.0;
+            double weight = random.nextInt(20_000) / 10.0;
+            double discountRate = (5 + random.nextInt(6)) / 100.0;
+            double price = unitPrice * (weight / 100);
+            assertFormattedLikeStringFormat(weight);
+            assertFormattedLikeStringFormat(price - price * discountRate);
+            assertFormattedLikeStringFormat(unitPrice * random.nextInt(100) - random.nextInt(10) * 0.25);
+        }
+    }
+
+    @Test
+    void shouldMatchStringFormatForRandomDoubles() {
+        Random random = new Random(11);
+        for (int i = 0; i < 200_000; i++) {
+            assertFormattedLikeStringFormat((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 3));
+        }
+    }
+
+    @Test
+    void shouldRoundMicroEurosHalfUpToCents() {
+        assertEquals("0.00", ReceiptWriter.appendEuros(new StringBuilder(), 0L).toString());
+        assertEquals("0.01", ReceiptWriter.appendEuros(new StringBuilder(), 5_000L).toString());
+        assertEquals("0.00", ReceiptWriter.appendEuros(new StringBuilder(), 4_999L).toString());
+        assertEquals("-0.00", ReceiptWriter.appendEuros(new StringBuilder(), -4_999L).toString());
+        assertEquals("-0.01", ReceiptWriter.appendEuros(new StringBuilder(), -5_000L).toString());
+        assertEquals("6.61", ReceiptWriter.appendEuros(new StringBuilder(), 6_605_500L).toString());
+        assertEquals("1234567.89", ReceiptWriter.appendEuros(new StringBuilder(), 1_234_567_890_000L).toString());
+        assertEquals("-3.07", ReceiptWriter.appendEuros(new StringBuilder(), -3_070_000L).toString());
+    }
+
+    @Test
+    void eurosShouldMatchStringFormatOfTheExactAmount() {
+        long[] micros = {0L, 1L, -1L, 4_999L, -4_999L, 5_000L, -5_000L, 15_000L, -15_000L, 6_605_500L, -6_605_500L,
+                999_999_995_000L, -999_999_995_000L, 1_000_000_000_000L, 123_456_789_125_000L, -123_456_789_125_000L};
+        for (long amount : micros) {
+            assertEquals(String.format("%.2f", BigDecimal.valueOf(amount, 6)), ReceiptWriter.appendEuros(new StringBuilder(), amount).toString(), "micros " + amount);
+        }
+        assertEquals(String.format("%.2f", -0.004999), ReceiptWriter.appendEuros(new StringBuilder(), -4_999L).toString());
+    }
+
+    @Test
+    void shouldFormatInTheDefaultLocaleLikeStringFormat() {
+        Locale defaultLocale = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            for (Locale locale : List.of(Locale.GERMANY, Locale.forLanguageTag("ar-EG"), Locale.forLanguageTag("hi-IN-u-nu-deva"), Locale.ROOT)) {
+                Locale.setDefault(Locale.Category.FORMAT, locale);
+                for (double value : new double[]{0.125, -0.004, 2.675, -1.005, 1e6, 123456789.125, Double.NaN}) {
+                    assertEquals(String.format("%.2f", value), ReceiptWriter.appendFixed(new StringBuilder(), value, 2).toString(), locale + " " + value);
+                    assertEquals(String.format("%.1f", value), ReceiptWriter.appendFixed(new StringBuilder(), value, 1).toString(), locale + " " + value);
+                }
+                for (long amount : new long[]{-4_999L, 6_605_500L, -123_456_789_125_000L}) {
+                    assertEquals(String.format("%.2f", BigDecimal.valueOf(amount, 6)), ReceiptWriter.appendEuros(new StringBuilder(), amount).toString(), locale + " " + amount);
+                }
+                assertEquals("Total: €" + String.format("%.2f", 1.5), ReceiptWriter.appendEuros(new StringBuilder("Total: €"), 1_500_000L).toString());
+            }
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, defaultLocale);
+        }
+    }
+
+    private void assertFormattedLikeStringFormat(double value) {
+        assertEquals(String.format(Locale.ROOT, "%.2f", value), ReceiptWriter.appendFixed(new StringBuilder(), value, 2).toString(), "value " + value);
+        assertEquals(String.format(Locale.ROOT, "%.1f", value), ReceiptWriter.appendFixed(new StringBuilder(), value, 1).toString(), "value " + value);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.online.grocery.service;
+
+import com.example.online.grocery.BootStrapInitialData;
+import com.example.online.grocery.dto.OrderRequest;
+import com.example.online.grocery.dto.SalesStats;
+import com.example.online.grocery.entity.Item;
+import com.example.online.grocery.entity.Order;
+import com.example.online.grocery.entity.OrderItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SalesAggregatesTest {
+    ItemCatalog itemCatalog = new ItemCatalog(null, null);
+    SalesAggregates salesAggregates = new SalesAggregates(92);
+    OrderService orderService;
+
+    @BeforeEach
+    void setup() {
+        itemCatalog.publish(new CatalogSnapshot(List.of(
+                new Item("bread", 1.0, Item.ProductType.BREAD),
+                new Item("vegetable", 1.0, Item.ProductType.VEGETABLE),
+                new Item("Dutch beer", 0.5, Item.ProductType.DUTCH_BEER),
+                new Item("German beer", 1.0, Item.ProductType.GERMAN_BEER)),
+                BootStrapInitialData.defaultPromotionRules()));
+        orderService = new OrderService(itemCatalog, PricedOrderSink.NONE, PricingMetrics.NONE,
+                new ReceiptMemo(new SimpleMeterRegistry(), true, 100, 8), salesAggregates, ParallelLinePricer.NONE);
+    }
+
+    @Test
+    void pricedOrdersShouldBeAddedPerTypeOriginAndDay() {
+        orderService.processOrder(basket());
+        orderService.processOrder(basket());
+        orderService.processOrder(new Order(new ArrayList<>(List.of(new OrderItem("Dutch beer", 6, "Dutch"), new OrderItem("German beer", 7, "German")))));
+
+        SalesStats stats = salesAggregates.stats();
+
+        assertEquals(3, stats.orders());
+        assertEquals(new SalesStats.Totals(2, 6, 0.0, 4.0, 2.0), stats.byType().get(Item.ProductType.BREAD));
+        assertEquals(new SalesStats.Totals(2, 0, 400.0, 3.72, 0.28), stats.byType().get(Item.ProductType.VEGETABLE));
+        assertEquals(new SalesStats.Totals(1, 6, 0.0, 1.0, 2.0), stats.byType().get(Item.ProductType.DUTCH_BEER));
+        assertEquals(new SalesStats.Totals(1, 7, 0.0, 3.0, 4.0), stats.byType().get(Item.ProductType.GERMAN_BEER));
+        assertFalse(stats.byType().containsKey(Item.ProductType.BEER));
+        assertEquals(new SalesStats.Totals(6, 19, 400.0, 11.72, 8.28), stats.total());
+        assertEquals(new SalesStats.Totals(1, 6, 0.0, 1.0, 2.0), stats.byOrigin().get("Dutch"));
+        assertEquals(2, stats.byOrigin().size());
+        SalesStats.DailySales today = stats.byDay().get(LocalDate.now(ZoneOffset.UTC));
+        assertEquals(3, today.orders());
+        assertEquals(stats.total(), today.total());
+    }
+
+    @Test
+    void parallelBatchesShouldAddUpExactly() {
+        List<OrderRequest> orders = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            orders.add(new OrderRequest(List.of(new OrderRequest.Line("bread", 3, 3, null, 0.0), new OrderRequest.Line("vegetable", 0, null, null, 200.0))));
+        }
+
+        orderService.processOrders(orders);
+
+        SalesStats stats = salesAggregates.stats();
+        assertEquals(2_000, stats.orders());
+        assertEquals(new SalesStats.Totals(2_000, 6_000, 0.0, 4_000.0, 2_000.0), stats.byType().get(Item.ProductType.BREAD));
+        assertEquals(new SalesStats.Totals(2_000, 0, 400_000.0, 3_720.0, 280.0), stats.byType().get(Item.ProductType.VEGETABLE));
+    }
+
+    @Test
+    void daysOlderThanTheRetentionShouldBeDropped() {
+        SalesAggregates aggregates = new SalesAggregates(2);
+        Instant first = Instant.parse("2024-05-01T23:59:59Z");
+
+        aggregates.record(pricedBread(first));
+        aggregates.record(pricedBread(first.plusSeconds(1)));
+        aggregates.record(pricedBread(first.plusSeconds(86_401)));
+
+        SalesStats stats = aggregates.stats();
+        assertEquals(3, stats.orders());
+        assertEquals(List.of(LocalDate.parse("2024-05-02"), LocalDate.parse("2024-05-03")), List.copyOf(stats.byDay().keySet()));
+        assertEquals(1, stats.byDay().get(LocalDate.parse("2024-05-02")).orders());
+    }
+
+    @Test
+    void lateOrderShouldNotBringBackADroppedDay() {
+        SalesAggregates aggregates = new SalesAggregates(2);
+        Instant latest = Instant.parse("2024-05-03T12:00:00Z");
+
+        aggregates.record(pricedBread(latest));
+        aggregates.record(pricedBread(latest.minusSeconds(2 * 86_400)));
+
+        SalesStats stats = aggregates.stats();
+        assertEquals(2, stats.orders());
+        assertEquals(List.of(LocalDate.parse("2024-05-03")), List.copyOf(stats.byDay().keySet()));
+    }
+
+    @Test
+    void originsBeyondTheLimitShouldBeCountedTogether() {
+        for (int i = 0; i < SalesAggregates.MAX_ORIGINS + 8; i++) {
+            salesAggregates.record(priced(new OrderRequest.Line("Dutch beer", 6, null, "origin " + i, 0.0), Instant.now()));
+        }
+
+        SalesStats stats = salesAggregates.stats();
+        assertEquals(SalesAggregates.MAX_ORIGINS + 1, stats.byOrigin().size());
+        assertEquals(8, stats.byOrigin().get(SalesAggregates.OTHER_ORIGIN).lines());
+    }
+
+    private static Order basket() {
+        return new Order(new ArrayList<>(List.of(new OrderItem("bread", 3, 3), new OrderItem("vegetable", 200.0))));
+    }
+
+    private static PricedOrder pricedBread(Instant placedAt) {
+        return priced(new OrderRequest.Line("bread", 2, 1, null, 0.0), placedAt);
+    }
+
+    private static PricedOrder priced(OrderRequest.Line line, Instant placedAt) {
+        PricedOrder order = new PricedOrder(List.of(line), 1, placedAt);
+        order.price(0, new Item("bread", 1.0, Item.ProductType.BREAD), 1_000_000L, 0L);
+        return order;
+    }
+}